@@ -0,0 +1,90 @@
+package me.noramibu.benchmark;
+
+import me.noramibu.data.HappyGhastData;
+import net.minecraft.nbt.NbtCompound;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 快乐恶魂数据热点路径基准测试
+ * 覆盖饱食度结算、跨等级加经验和NBT读写
+ */
+@State(Scope.Thread)
+public class HappyGhastDataBenchmark {
+    // 每次加经验的数量，覆盖不升级、升一级和连升多级的情况
+    @Param({"10", "250", "2000"})
+    public int expAmount;
+    
+    private HappyGhastData data;
+    private NbtCompound nbt;
+    private long tick;
+    
+    @Setup
+    public void setup() {
+        data = HappyGhastData.detached();
+        data.updateHunger(0);
+        nbt = new NbtCompound();
+        data.writeToNbt(nbt);
+        tick = 0;
+    }
+    
+    /**
+     * 饱食度结算（调度器唤醒、喂食时调用）
+     */
+    @Benchmark
+    public float updateHunger() {
+        data.updateHunger(tick += 20);
+        return data.getHunger(tick);
+    }
+    
+    /**
+     * 按需读取饱食度（GUI同步时调用）
+     */
+    @Benchmark
+    public float getHunger() {
+        return data.getHunger(tick += 20);
+    }
+    
+    /**
+     * 从等级1加经验，可能跨越多个等级
+     */
+    @Benchmark
+    public int addExperience() {
+        data.reset();
+        data.addExperience(expAmount, 0);
+        return data.getLevel();
+    }
+    
+    /**
+     * NBT写入
+     */
+    @Benchmark
+    public NbtCompound writeNbt() {
+        NbtCompound out = new NbtCompound();
+        data.writeToNbt(out);
+        return out;
+    }
+    
+    /**
+     * NBT写入后读取
+     */
+    @Benchmark
+    public HappyGhastData nbtRoundTrip() {
+        NbtCompound out = new NbtCompound();
+        data.writeToNbt(out);
+        data.readFromNbt(out);
+        return data;
+    }
+    
+    /**
+     * NBT读取
+     */
+    @Benchmark
+    public HappyGhastData readNbt() {
+        data.readFromNbt(nbt);
+        return data;
+    }
+}
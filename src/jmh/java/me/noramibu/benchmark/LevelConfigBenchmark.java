@@ -0,0 +1,63 @@
+package me.noramibu.benchmark;
+
+import me.noramibu.level.LevelConfig;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.item.Item;
+import net.minecraft.item.Items;
+import net.minecraft.registry.Registries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+
+/**
+ * 等级配置查询基准测试
+ * 需要注册表引导才能获取物品原始ID，但不会启动客户端或服务端
+ */
+@State(Scope.Thread)
+public class LevelConfigBenchmark {
+    private Item[] foods;
+    private int index;
+    
+    @Setup
+    public void setup() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+        
+        // 模拟数据包加载后的经验值表
+        int[] table = new int[Registries.ITEM.size()];
+        Arrays.fill(table, -1);
+        table[Registries.ITEM.getRawId(Items.APPLE)] = 5;
+        table[Registries.ITEM.getRawId(Items.BREAD)] = 10;
+        table[Registries.ITEM.getRawId(Items.COOKED_BEEF)] = 20;
+        table[Registries.ITEM.getRawId(Items.GOLDEN_APPLE)] = 50;
+        LevelConfig.setFoodExpTable(table, 8);
+        
+        // 混合已配置和未配置的食物
+        foods = new Item[] {
+            Items.APPLE, Items.BREAD, Items.COOKED_BEEF, Items.GOLDEN_APPLE,
+            Items.COOKIE, Items.BAKED_POTATO, Items.MELON_SLICE, Items.SWEET_BERRIES
+        };
+    }
+    
+    /**
+     * 食物经验值查询
+     */
+    @Benchmark
+    public int getExpFromFood() {
+        index = (index + 1) & 7;
+        return LevelConfig.getExpFromFood(foods[index]);
+    }
+    
+    /**
+     * 根据累计经验值计算等级
+     */
+    @Benchmark
+    public int getLevelForTotalExp() {
+        index = (index + 1) & 7;
+        return LevelConfig.getLevelForTotalExp(index * 300L);
+    }
+}
@@ -0,0 +1,64 @@
+package me.noramibu.benchmark;
+
+import me.noramibu.client.ClientGhastState;
+import me.noramibu.gui.GhastScreenText;
+import me.noramibu.network.SyncGhastDataPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 快乐恶魂详情界面文本基准测试
+ * 对比每帧格式化文本和使用GhastScreenText缓存的开销
+ * 数值不变时缓存路径的gc.alloc.rate.norm应为0
+ */
+@State(Scope.Thread)
+public class ScreenTextBenchmark {
+    private ClientGhastState state;
+    private GhastScreenText text;
+    private SyncGhastDataPayload hungerA;
+    private SyncGhastDataPayload hungerB;
+    private boolean flip;
+    
+    @Setup
+    public void setup() {
+        state = new ClientGhastState(12345);
+        state.apply(new SyncGhastDataPayload(12345, SyncGhastDataPayload.ALL_FIELDS, 4, 320, 57.3f, 61.5f));
+        // 基准测试中没有字体，用字符数代替文本宽度
+        text = new GhastScreenText(String::length);
+        text.update(state);
+        hungerA = new SyncGhastDataPayload(12345, SyncGhastDataPayload.HUNGER, 0, 0, 57.2f, 0);
+        hungerB = new SyncGhastDataPayload(12345, SyncGhastDataPayload.HUNGER, 0, 0, 57.1f, 0);
+    }
+    
+    /**
+     * 原来的做法：每帧格式化所有数值文本
+     */
+    @Benchmark
+    public int formatEveryFrame() {
+        String health = String.format("%.1f / %.1f", state.getCurrentHealth(), state.getMaxHealth());
+        String hunger = String.format("%.1f / %.1f", state.getHunger(), state.getMaxHunger());
+        String exp = state.getExperience() + " / " + state.getExpToNext();
+        String badge = "Lv." + state.getLevel();
+        return health.length() + hunger.length() + exp.length() + badge.length();
+    }
+    
+    /**
+     * 数值不变时的每帧刷新，不应分配任何对象
+     */
+    @Benchmark
+    public boolean cachedUnchanged() {
+        return text.update(state);
+    }
+    
+    /**
+     * 每帧饱食度都变化的最坏情况，只重新生成饱食度文本
+     */
+    @Benchmark
+    public boolean cachedHungerChanged() {
+        flip = !flip;
+        state.apply(flip ? hungerA : hungerB);
+        return text.update(state);
+    }
+}
@@ -0,0 +1,68 @@
+package me.noramibu.benchmark;
+
+import io.netty.buffer.Unpooled;
+import me.noramibu.network.SyncGhastDataPayload;
+import net.minecraft.network.PacketByteBuf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 数据同步网络包编解码基准测试
+ * 分别测试完整数据包和只包含饱食度的增量数据包
+ */
+@State(Scope.Thread)
+public class SyncPayloadBenchmark {
+    private PacketByteBuf buf;
+    private SyncGhastDataPayload full;
+    private SyncGhastDataPayload hungerOnly;
+    
+    @Setup
+    public void setup() {
+        buf = new PacketByteBuf(Unpooled.buffer(64));
+        full = new SyncGhastDataPayload(12345, SyncGhastDataPayload.ALL_FIELDS | SyncGhastDataPayload.OPEN_SCREEN,
+            4, 320, 57.3f, 61.5f);
+        hungerOnly = new SyncGhastDataPayload(12345, SyncGhastDataPayload.HUNGER, 0, 0, 57.2f, 0);
+    }
+    
+    /**
+     * 编码完整数据包
+     */
+    @Benchmark
+    public int encodeFull() {
+        buf.clear();
+        SyncGhastDataPayload.CODEC.encode(buf, full);
+        return buf.writerIndex();
+    }
+    
+    /**
+     * 编码只包含饱食度的增量数据包
+     */
+    @Benchmark
+    public int encodeDelta() {
+        buf.clear();
+        SyncGhastDataPayload.CODEC.encode(buf, hungerOnly);
+        return buf.writerIndex();
+    }
+    
+    /**
+     * 编码后解码完整数据包
+     */
+    @Benchmark
+    public SyncGhastDataPayload roundTripFull() {
+        buf.clear();
+        SyncGhastDataPayload.CODEC.encode(buf, full);
+        return SyncGhastDataPayload.CODEC.decode(buf);
+    }
+    
+    /**
+     * 编码后解码增量数据包
+     */
+    @Benchmark
+    public SyncGhastDataPayload roundTripDelta() {
+        buf.clear();
+        SyncGhastDataPayload.CODEC.encode(buf, hungerOnly);
+        return SyncGhastDataPayload.CODEC.decode(buf);
+    }
+}
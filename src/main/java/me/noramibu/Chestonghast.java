@@ -1,5 +1,20 @@
 package me.noramibu;
 
+import me.noramibu.cargo.GhastCargo;
+import me.noramibu.cargo.GhastCargoIndex;
+import me.noramibu.cargo.GhastFindCommand;
+import me.noramibu.hunger.GhastAutoFeeder;
+import me.noramibu.hunger.HungerScheduler;
+import me.noramibu.index.GhastSpatialIndex;
+import me.noramibu.level.FoodExperienceLoader;
+import me.noramibu.level.LevelCurveLoader;
+import me.noramibu.loadtest.GhastLoadTest;
+import me.noramibu.metrics.GhastStatsCommand;
+import me.noramibu.ownership.GhastOwnerCommand;
+import me.noramibu.ownership.GhastOwnershipIndex;
+import me.noramibu.sync.GhastNearbyBroadcast;
+import me.noramibu.sync.GhastSubscriptions;
+import me.noramibu.sync.GhastSyncTracker;
 import net.fabricmc.api.ModInitializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +40,64 @@ public class Chestonghast implements ModInitializer {
 		// 用于处理客户端发送的按键事件
 		NetworkHandler.registerServerReceivers();
 		
+		// 注册请求限流器
+		// 限制每个玩家发送问候和打开GUI请求的频率
+		RequestLimiter.register();
+		
+		// 注册食物经验值数据包加载器
+		// 服务端启动和/reload时从数据包读取经验值表
+		FoodExperienceLoader.register();
+		
+		// 注册等级曲线数据包加载器
+		// 服务端启动和/reload时从数据包读取等级曲线
+		LevelCurveLoader.register();
+		
+		// 注册饱食度调度器
+		// 饱食度按需计算，只在需要时唤醒快乐恶魂
+		HungerScheduler.register();
+		
+		// 注册自动进食
+		// 饱食度低于阈值的恶魂在每tick的时间预算内轮流从货舱进食
+		GhastAutoFeeder.register();
+		
+		// 注册快乐恶魂空间索引
+		// 按区块段记录已加载的恶魂，用于视线检测等范围查询
+		GhastSpatialIndex.register();
+		
+		// 注册数据同步追踪器
+		// 记录每个玩家已收到的数据，只发送变化的字段
+		GhastSyncTracker.register();
+		
+		// 注册GUI订阅管理
+		// GUI打开期间定期推送变化的数据
+		GhastSubscriptions.register();
+		
+		// 注册附近恶魂广播
+		// 每秒向玩家发送附近恶魂的变化，用于头顶信息显示
+		GhastNearbyBroadcast.register();
+		
+		// 注册快乐恶魂货舱界面
+		// 把恶魂身上所有箱子矿车合并成一个界面
+		GhastCargo.register();
+		
+		// 注册快乐恶魂货舱索引
+		// 随世界保存，按物品查找玩家的恶魂时不需要加载区块
+		GhastCargoIndex.register();
+		GhastFindCommand.register();
+		
+		// 注册快乐恶魂主人索引
+		// 随世界保存，按玩家查询其恶魂时不需要加载区块
+		GhastOwnershipIndex.register();
+		GhastOwnerCommand.register();
+		
+		// 注册负载测试命令
+		// 在无客户端的服务端上模拟大量快乐恶魂并报告钩子耗时
+		GhastLoadTest.register();
+		
+		// 注册统计命令
+		// 通过/ghaststats查看钩子耗时、事件和网络包计数
+		GhastStatsCommand.register();
+		
 		LOGGER.info("Chest on Ghast mod initialized!");
 	}
 } 
\ No newline at end of file
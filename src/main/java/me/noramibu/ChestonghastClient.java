@@ -1,15 +1,42 @@
 package me.noramibu;
 
+import me.noramibu.accessor.GhastCargoAccessor;
+import me.noramibu.cargo.GhastCargo;
+import me.noramibu.client.ClientGhastCache;
+import me.noramibu.client.ClientGhastState;
+import me.noramibu.client.ClientLevelCurve;
+import me.noramibu.client.OverlayConfig;
+import me.noramibu.client.render.CargoFeatureRenderer;
+import me.noramibu.gui.CargoFindScreen;
+import me.noramibu.gui.CargoScreen;
+import me.noramibu.gui.GhastFleetScreen;
 import me.noramibu.gui.HappyGhastScreen;
+import me.noramibu.hunger.GhastFeeding;
+import me.noramibu.network.CargoFindResultPayload;
+import me.noramibu.network.CargoModulesPayload;
+import me.noramibu.network.FleetQueryPayload;
+import me.noramibu.network.FleetStatusPayload;
 import me.noramibu.network.GreetGhastPayload;
+import me.noramibu.network.LevelCurvePayload;
+import me.noramibu.network.OpenCargoPayload;
+import me.noramibu.network.SyncGhastBatchPayload;
 import me.noramibu.network.SyncGhastDataPayload;
 import net.fabricmc.api.ClientModInitializer;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientEntityEvents;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientWorldEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.fabricmc.fabric.api.client.rendering.v1.LivingEntityFeatureRendererRegistrationCallback;
+import net.fabricmc.fabric.api.event.player.UseEntityCallback;
 import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.screen.ingame.HandledScreens;
 import net.minecraft.client.option.KeyBinding;
+import net.minecraft.client.render.entity.HappyGhastEntityRenderer;
 import net.minecraft.client.util.InputUtil;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.util.ActionResult;
 import org.lwjgl.glfw.GLFW;
 
 /**
@@ -19,6 +46,12 @@ import org.lwjgl.glfw.GLFW;
 public class ChestonghastClient implements ClientModInitializer {
     // 定义H键绑定，用于与快乐恶魂互动
     private static KeyBinding greetGhastKey;
+    
+    // 定义G键绑定，用于查看恶魂舰队
+    private static KeyBinding fleetKey;
+    
+    // 定义K键绑定，用于打开快乐恶魂货舱
+    private static KeyBinding cargoKey;
 
     /**
      * 客户端初始化方法
@@ -34,29 +67,165 @@ public class ChestonghastClient implements ClientModInitializer {
             GLFW.GLFW_KEY_H, // 默认绑定到H键
             KeyBinding.Category.MISC // 按键类别，使用MISC枚举
         ));
+        
+        // 注册G键绑定，打开恶魂舰队界面
+        fleetKey = KeyBindingHelper.registerKeyBinding(new KeyBinding(
+            "key.chest-on-ghast.fleet",
+            InputUtil.Type.KEYSYM,
+            GLFW.GLFW_KEY_G,
+            KeyBinding.Category.MISC
+        ));
+        
+        // 注册K键绑定，打开乘坐或正在看着的恶魂的货舱
+        cargoKey = KeyBindingHelper.registerKeyBinding(new KeyBinding(
+            "key.chest-on-ghast.cargo",
+            InputUtil.Type.KEYSYM,
+            GLFW.GLFW_KEY_K,
+            KeyBinding.Category.MISC
+        ));
+        
+        // 注册货舱界面
+        HandledScreens.register(GhastCargo.SCREEN_HANDLER, CargoScreen::new);
+        
+        // 在快乐恶魂身上绘制无实体货舱模式的箱子
+        LivingEntityFeatureRendererRegistrationCallback.EVENT.register((entityType, entityRenderer, registrationHelper, context) -> {
+            if (entityRenderer instanceof HappyGhastEntityRenderer renderer) {
+                registrationHelper.register(new CargoFeatureRenderer(renderer));
+            }
+        });
 
         // 注册客户端tick事件监听器
         // 每个游戏tick都会检查按键是否被按下
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
             // 检查H键是否被按下
-            while (greetGhastKey.wasPressed()) {
+            // 同一tick内的多次按下合并为一次
+            if (consumePresses(greetGhastKey)) {
                 // 发送网络包到服务端，告知服务端玩家按下了H键
                 // 服务端会处理这个包并检测玩家是否在看着快乐恶魂
                 ClientPlayNetworking.send(new GreetGhastPayload());
             }
+            
+            // 检查G键是否被按下，一次请求查询附近所有恶魂的状态
+            if (consumePresses(fleetKey)) {
+                ClientPlayNetworking.send(new FleetQueryPayload());
+            }
+            
+            // 检查K键是否被按下，请求打开货舱
+            if (consumePresses(cargoKey)) {
+                ClientPlayNetworking.send(new OpenCargoPayload());
+            }
         });
         
         // 注册客户端网络包接收器
-        // 接收服务端发送的快乐恶魂数据并打开GUI
+        // 接收服务端发送的快乐恶魂增量数据，更新缓存并按需打开GUI
         ClientPlayNetworking.registerGlobalReceiver(
             SyncGhastDataPayload.ID,
             (payload, context) -> {
                 // 在客户端主线程中执行，确保线程安全
                 context.client().execute(() -> {
-                    // 打开快乐恶魂GUI屏幕
-                    MinecraftClient.getInstance().setScreen(new HappyGhastScreen(payload));
+                    // 更新缓存，已打开的GUI直接读取缓存，会自动显示新数值
+                    // 缺少基础状态时已请求重新发送，等待完整数据
+                    ClientGhastState state = ClientGhastCache.apply(payload);
+                    if (state == null) return;
+                    
+                    // 打开快乐恶魂GUI屏幕，同一只恶魂的GUI已打开或已从缓存提前打开时不重复创建
+                    MinecraftClient client = context.client();
+                    if (HappyGhastScreen.shouldOpenForServer(state.getEntityId(), payload.has(SyncGhastDataPayload.OPEN_SCREEN))
+                        && !(client.currentScreen instanceof HappyGhastScreen screen && screen.getEntityId() == state.getEntityId())) {
+                        client.setScreen(new HappyGhastScreen(state));
+                    }
                 });
             }
         );
+        
+        // 接收附近恶魂的批量增量数据，只更新缓存，HUD信息每帧从缓存读取
+        ClientPlayNetworking.registerGlobalReceiver(
+            SyncGhastBatchPayload.ID,
+            (payload, context) -> context.client().execute(() -> {
+                for (SyncGhastDataPayload update : payload.updates()) {
+                    ClientGhastCache.apply(update);
+                }
+            })
+        );
+        
+        // 读取客户端配置，附近恶魂的头顶信息在实体渲染时从缓存读取
+        OverlayConfig.load();
+        
+        // Shift+右键快乐恶魂时，缓存中有数据就立即打开GUI；手持食物时是批量喂食，不打开
+        // 返回PASS，交互照常发送到服务端，服务端返回的数据会刷新已打开的GUI
+        UseEntityCallback.EVENT.register((player, world, hand, entity, hitResult) -> {
+            if (world.isClient() && player.isSneaking() && entity instanceof HappyGhastEntity
+                && !GhastFeeding.isFood(player.getStackInHand(hand).getItem())) {
+                HappyGhastScreen.openFromCache(MinecraftClient.getInstance(), entity.getId());
+            }
+            return ActionResult.PASS;
+        });
+        
+        // 实体卸载或切换世界时移除缓存，服务端会同步移除对应的发送记录
+        ClientEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof HappyGhastEntity) {
+                ClientGhastCache.remove(entity.getId());
+            }
+        });
+        ClientWorldEvents.AFTER_CLIENT_WORLD_CHANGE.register((client, world) -> ClientGhastCache.clear());
+        
+        // 接收批量舰队状态，已打开舰队界面时原地更新，否则打开舰队界面
+        ClientPlayNetworking.registerGlobalReceiver(
+            FleetStatusPayload.ID,
+            (payload, context) -> context.client().execute(() -> {
+                MinecraftClient client = context.client();
+                if (client.currentScreen instanceof GhastFleetScreen screen) {
+                    screen.update(payload.entries());
+                } else {
+                    client.setScreen(new GhastFleetScreen(payload.entries()));
+                }
+            })
+        );
+        
+        // 接收货舱查找结果，查找界面已关闭时忽略
+        ClientPlayNetworking.registerGlobalReceiver(
+            CargoFindResultPayload.ID,
+            (payload, context) -> context.client().execute(() -> {
+                if (context.client().currentScreen instanceof CargoFindScreen screen) {
+                    screen.update(payload.entries());
+                }
+            })
+        );
+        
+        // 接收恶魂的货舱模块数量，渲染时在恶魂身上绘制对应数量的箱子
+        ClientPlayNetworking.registerGlobalReceiver(
+            CargoModulesPayload.ID,
+            (payload, context) -> context.client().execute(() -> {
+                MinecraftClient client = context.client();
+                if (client.world != null && client.world.getEntityById(payload.entityId()) instanceof GhastCargoAccessor cargo) {
+                    cargo.setCargoModuleCount(payload.modules());
+                }
+            })
+        );
+        
+        // 接收服务端的等级曲线，派生数值与服务端保持一致
+        ClientPlayNetworking.registerGlobalReceiver(
+            LevelCurvePayload.ID,
+            (payload, context) -> context.client().execute(() -> ClientLevelCurve.set(payload.levels()))
+        );
+        
+        // 断开连接时清空缓存并恢复默认等级曲线，服务端同样会清除发送记录
+        ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> {
+            ClientGhastCache.clear();
+            ClientLevelCurve.reset();
+        });
+    }
+    
+    /**
+     * 取出按键在这一tick内积累的所有按下次数
+     * @param key 按键
+     * @return 这一tick内至少按下过一次返回true
+     */
+    private static boolean consumePresses(KeyBinding key) {
+        boolean pressed = false;
+        while (key.wasPressed()) {
+            pressed = true;
+        }
+        return pressed;
     }
 }
@@ -1,20 +1,39 @@
 package me.noramibu;
 
 import me.noramibu.accessor.HappyGhastDataAccessor;
+import me.noramibu.cargo.GhastCargo;
+import me.noramibu.cargo.GhastFindCommand;
 import me.noramibu.data.HappyGhastData;
+import me.noramibu.fleet.GhastFleet;
+import me.noramibu.index.GhastSpatialIndex;
+import me.noramibu.level.LevelConfig;
+import me.noramibu.metrics.GhastMetrics;
+import me.noramibu.metrics.GhastProfiler;
+import me.noramibu.network.CargoFindPayload;
+import me.noramibu.network.CargoFindResultPayload;
+import me.noramibu.network.CargoModulesPayload;
+import me.noramibu.network.CloseGhastGuiPayload;
+import me.noramibu.network.FleetQueryPayload;
+import me.noramibu.network.FleetStatusPayload;
 import me.noramibu.network.GreetGhastPayload;
+import me.noramibu.network.LevelCurvePayload;
+import me.noramibu.network.OpenCargoPayload;
 import me.noramibu.network.OpenGhastGuiPayload;
+import me.noramibu.network.ResyncGhastPayload;
+import me.noramibu.network.SyncGhastBatchPayload;
 import me.noramibu.network.SyncGhastDataPayload;
+import me.noramibu.sync.GhastSubscriptions;
+import me.noramibu.sync.GhastSyncTracker;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.networking.v1.PayloadTypeRegistry;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.entity.Entity;
+import net.minecraft.entity.attribute.EntityAttributes;
 import net.minecraft.entity.passive.HappyGhastEntity;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
-import net.minecraft.util.hit.EntityHitResult;
-import net.minecraft.util.hit.HitResult;
 import net.minecraft.util.math.Vec3d;
-import net.minecraft.world.World;
 
 /**
  * 网络包处理器
@@ -38,12 +57,84 @@ public class NetworkHandler {
             OpenGhastGuiPayload.CODEC
         );
         
+        // 注册关闭GUI的网络包
+        PayloadTypeRegistry.playC2S().register(
+            CloseGhastGuiPayload.ID,
+            CloseGhastGuiPayload.CODEC
+        );
+        
+        // 注册查询舰队状态的网络包
+        PayloadTypeRegistry.playC2S().register(
+            FleetQueryPayload.ID,
+            FleetQueryPayload.CODEC
+        );
+        
+        // 注册打开货舱的网络包
+        PayloadTypeRegistry.playC2S().register(
+            OpenCargoPayload.ID,
+            OpenCargoPayload.CODEC
+        );
+        
+        // 注册货舱查找的网络包
+        PayloadTypeRegistry.playC2S().register(
+            CargoFindPayload.ID,
+            CargoFindPayload.CODEC
+        );
+        
+        // 注册请求重新发送完整数据的网络包
+        PayloadTypeRegistry.playC2S().register(
+            ResyncGhastPayload.ID,
+            ResyncGhastPayload.CODEC
+        );
+        
         // 注册同步数据的网络包（服务端到客户端）
         PayloadTypeRegistry.playS2C().register(
             SyncGhastDataPayload.ID,
             SyncGhastDataPayload.CODEC
         );
         
+        // 注册批量同步数据的网络包（服务端到客户端）
+        PayloadTypeRegistry.playS2C().register(
+            SyncGhastBatchPayload.ID,
+            SyncGhastBatchPayload.CODEC
+        );
+        
+        // 注册同步等级曲线的网络包（服务端到客户端）
+        PayloadTypeRegistry.playS2C().register(
+            LevelCurvePayload.ID,
+            LevelCurvePayload.CODEC
+        );
+        
+        // 注册批量舰队状态的网络包（服务端到客户端）
+        PayloadTypeRegistry.playS2C().register(
+            FleetStatusPayload.ID,
+            FleetStatusPayload.CODEC
+        );
+        
+        // 注册货舱查找结果的网络包（服务端到客户端）
+        PayloadTypeRegistry.playS2C().register(
+            CargoFindResultPayload.ID,
+            CargoFindResultPayload.CODEC
+        );
+        
+        // 注册货舱模块数量的网络包（服务端到客户端）
+        PayloadTypeRegistry.playS2C().register(
+            CargoModulesPayload.ID,
+            CargoModulesPayload.CODEC
+        );
+        
+        // 玩家加入时同步等级曲线，客户端据此计算派生数值
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) ->
+            sendLevelCurve(handler.getPlayer(), new LevelCurvePayload(LevelConfig.getLevels())));
+        
+        // 数据包重新加载后向所有玩家同步新的等级曲线
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) -> {
+            LevelCurvePayload payload = new LevelCurvePayload(LevelConfig.getLevels());
+            for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+                sendLevelCurve(player, payload);
+            }
+        });
+        
         // 注册问候快乐恶魂的处理器
         ServerPlayNetworking.registerGlobalReceiver(
             GreetGhastPayload.ID,
@@ -51,24 +142,12 @@ public class NetworkHandler {
                 // 在服务端主线程中执行，确保线程安全
                 context.server().execute(() -> {
                     ServerPlayerEntity player = context.player();
+                    GhastMetrics.countReceived(GhastMetrics.Packet.GREET_GHAST);
                     
-                    // 检测玩家是否正在看着一个实体
-                    HitResult hitResult = raycastEntity(player, 5.0);
+                    // 限流：超出频率的请求直接丢弃
+                    if (!RequestLimiter.tryAcquire(player, RequestLimiter.Type.GREET)) return;
                     
-                    // 如果射线检测到实体
-                    if (hitResult != null && hitResult.getType() == HitResult.Type.ENTITY) {
-                        EntityHitResult entityHit = (EntityHitResult) hitResult;
-                        Entity targetEntity = entityHit.getEntity();
-                        
-                        // 检查目标实体是否是快乐恶魂
-                        if (targetEntity instanceof HappyGhastEntity) {
-                            // 让快乐恶魂向玩家发送"你好！！！"消息
-                            player.sendMessage(Text.literal("你好！！！"), false);
-                            
-                            // 记录日志，用于调试
-                            Chestonghast.LOGGER.info("玩家 {} 对快乐恶魂按下了H键", player.getName().getString());
-                        }
-                    }
+                    handleGreet(player);
                 });
             }
         );
@@ -79,70 +158,200 @@ public class NetworkHandler {
             (payload, context) -> {
                 context.server().execute(() -> {
                     ServerPlayerEntity player = context.player();
+                    GhastMetrics.countReceived(GhastMetrics.Packet.OPEN_GHAST_GUI);
                     
-                    // 根据实体ID获取快乐恶魂
-                    Entity entity = player.getEntityWorld().getEntityById(payload.entityId());
+                    // 限流：超出频率的请求直接丢弃
+                    if (!RequestLimiter.tryAcquire(player, RequestLimiter.Type.OPEN_GUI, payload.entityId())) return;
                     
-                    if (entity instanceof HappyGhastEntity ghast) {
-                        // 读取快乐恶魂的数据
-                        HappyGhastData data = getOrCreateGhastData(ghast);
-                        
-                        // 发送数据到客户端并打开GUI
-                        SyncGhastDataPayload syncPayload = new SyncGhastDataPayload(
-                            ghast.getId(),
-                            data.getLevel(),
-                            data.getExperience(),
-                            data.getHunger(),
-                            data.getMaxHealth(),
-                            ghast.getHealth(),
-                            data.getMaxHunger(),
-                            data.getExpToNextLevel()
-                        );
-                        
-                        ServerPlayNetworking.send(player, syncPayload);
-                        
-                        Chestonghast.LOGGER.info("玩家 {} 打开了快乐恶魂GUI", player.getName().getString());
+                    handleOpenGui(player, payload.entityId());
+                });
+            }
+        );
+        
+        // 注册关闭GUI的处理器
+        ServerPlayNetworking.registerGlobalReceiver(
+            CloseGhastGuiPayload.ID,
+            (payload, context) -> {
+                context.server().execute(() -> {
+                    GhastMetrics.countReceived(GhastMetrics.Packet.CLOSE_GHAST_GUI);
+                    GhastSubscriptions.unsubscribe(context.player(), payload.entityId());
+                });
+            }
+        );
+        
+        // 注册请求重新发送完整数据的处理器
+        ServerPlayNetworking.registerGlobalReceiver(
+            ResyncGhastPayload.ID,
+            (payload, context) -> {
+                context.server().execute(() -> {
+                    ServerPlayerEntity player = context.player();
+                    GhastMetrics.countReceived(GhastMetrics.Packet.RESYNC_GHAST);
+                    
+                    // 限流：超出频率的请求直接丢弃，客户端收到下一次增量数据时会再次请求
+                    if (!RequestLimiter.tryAcquire(player, RequestLimiter.Type.RESYNC, payload.entityId())) return;
+                    
+                    if (player.getEntityWorld().getEntityById(payload.entityId()) instanceof HappyGhastEntity ghast) {
+                        GhastSyncTracker.forget(player, ghast.getId());
+                        sendGhastData(player, ghast, payload.openScreen());
                     }
                 });
             }
         );
+        
+        // 注册查询舰队状态的处理器
+        ServerPlayNetworking.registerGlobalReceiver(
+            FleetQueryPayload.ID,
+            (payload, context) -> {
+                context.server().execute(() -> {
+                    ServerPlayerEntity player = context.player();
+                    GhastMetrics.countReceived(GhastMetrics.Packet.FLEET_QUERY);
+                    
+                    // 限流：超出频率的请求直接丢弃
+                    if (!RequestLimiter.tryAcquire(player, RequestLimiter.Type.FLEET_QUERY)) return;
+                    
+                    handleFleetQuery(player);
+                });
+            }
+        );
+        
+        // 注册打开货舱的处理器
+        ServerPlayNetworking.registerGlobalReceiver(
+            OpenCargoPayload.ID,
+            (payload, context) -> {
+                context.server().execute(() -> {
+                    ServerPlayerEntity player = context.player();
+                    GhastMetrics.countReceived(GhastMetrics.Packet.OPEN_CARGO);
+                    
+                    // 限流：超出频率的请求直接丢弃
+                    if (!RequestLimiter.tryAcquire(player, RequestLimiter.Type.OPEN_CARGO)) return;
+                    
+                    GhastCargo.handleOpen(player);
+                });
+            }
+        );
+        
+        // 注册货舱查找的处理器
+        ServerPlayNetworking.registerGlobalReceiver(
+            CargoFindPayload.ID,
+            (payload, context) -> {
+                context.server().execute(() -> {
+                    ServerPlayerEntity player = context.player();
+                    GhastMetrics.countReceived(GhastMetrics.Packet.CARGO_FIND);
+                    
+                    // 限流：超出频率的请求直接丢弃
+                    if (!RequestLimiter.tryAcquire(player, RequestLimiter.Type.CARGO_FIND)) return;
+                    
+                    CargoFindResultPayload result = GhastFindCommand.handleRequest(player, payload);
+                    ServerPlayNetworking.send(player, result);
+                    GhastMetrics.countSent(GhastMetrics.Packet.CARGO_FIND_RESULT, result.encodedSize());
+                });
+            }
+        );
     }
 
     /**
-     * 对玩家的视线进行射线检测，查找玩家正在看着的实体
+     * 处理H键问候请求
+     * 
+     * @param player 按下H键的玩家
+     */
+    public static void handleGreet(ServerPlayerEntity player) {
+        long start = GhastProfiler.start();
+        
+        // 检测玩家是否正在看着一只快乐恶魂
+        HappyGhastEntity ghast = raycastGhast(player, 5.0);
+        
+        if (ghast != null) {
+            // 让快乐恶魂向玩家发送"你好！！！"消息
+            player.sendMessage(Text.literal("你好！！！"), false);
+        }
+        
+        GhastProfiler.record(GhastProfiler.Section.GREET, start);
+    }
+    
+    /**
+     * 处理打开GUI请求
+     * 
+     * @param player 请求打开GUI的玩家
+     * @param entityId 快乐恶魂的实体ID
+     */
+    public static void handleOpenGui(ServerPlayerEntity player, int entityId) {
+        long start = GhastProfiler.start();
+        
+        // 根据实体ID获取快乐恶魂
+        Entity entity = player.getEntityWorld().getEntityById(entityId);
+        
+        if (entity instanceof HappyGhastEntity ghast) {
+            // 发送数据到客户端并打开GUI
+            sendGhastData(player, ghast, true);
+        }
+        
+        GhastProfiler.record(GhastProfiler.Section.OPEN_GUI, start);
+    }
+    
+    /**
+     * 处理舰队状态查询
+     * 一次返回玩家附近所有快乐恶魂的状态
+     * 
+     * @param player 查询的玩家
+     */
+    public static void handleFleetQuery(ServerPlayerEntity player) {
+        long start = GhastProfiler.start();
+        
+        FleetStatusPayload payload = GhastFleet.query(player);
+        ServerPlayNetworking.send(player, payload);
+        GhastMetrics.countSent(GhastMetrics.Packet.FLEET_STATUS, payload.encodedSize());
+        
+        GhastProfiler.record(GhastProfiler.Section.FLEET_QUERY, start);
+    }
+    
+    /**
+     * 向玩家发送快乐恶魂数据
+     * 只发送自上次同步以来发生变化的字段
+     * 打开GUI时同时订阅该恶魂，GUI打开期间会持续收到更新
+     * 
+     * @param player 目标玩家
+     * @param ghast 快乐恶魂实体
+     * @param openScreen 客户端收到后是否打开GUI
+     */
+    public static void sendGhastData(ServerPlayerEntity player, HappyGhastEntity ghast, boolean openScreen) {
+        if (openScreen) {
+            GhastSubscriptions.subscribe(player, ghast);
+        }
+        
+        SyncGhastDataPayload payload = GhastSyncTracker.createDelta(player, ghast, openScreen);
+        if (payload != null) {
+            ServerPlayNetworking.send(player, payload);
+            GhastMetrics.countSent(GhastMetrics.Packet.SYNC_GHAST_DATA, payload.encodedSize());
+        }
+    }
+    
+    /**
+     * 向玩家发送等级曲线
+     * 
+     * @param player 目标玩家
+     * @param payload 等级曲线网络包
+     */
+    private static void sendLevelCurve(ServerPlayerEntity player, LevelCurvePayload payload) {
+        ServerPlayNetworking.send(player, payload);
+        GhastMetrics.countSent(GhastMetrics.Packet.LEVEL_CURVE, payload.encodedSize());
+    }
+    
+    /**
+     * 对玩家的视线进行射线检测，查找玩家正在看着的快乐恶魂
+     * 通过空间索引只检查视线附近区块段中的恶魂
      * 
      * @param player 进行检测的玩家
      * @param maxDistance 最大检测距离
-     * @return 如果检测到实体则返回EntityHitResult，否则返回null
+     * @return 视线上距离最近的快乐恶魂，没有则返回null
      */
-    private static HitResult raycastEntity(ServerPlayerEntity player, double maxDistance) {
+    public static HappyGhastEntity raycastGhast(ServerPlayerEntity player, double maxDistance) {
         // 获取玩家的视线方向
         Vec3d eyePos = player.getEyePos();
         Vec3d lookVec = player.getRotationVec(1.0F);
         Vec3d endPos = eyePos.add(lookVec.multiply(maxDistance));
         
-        // 获取玩家所在的世界
-        World world = player.getEntityWorld();
-        
-        // 在玩家周围5格范围内查找快乐恶魂
-        for (Entity entity : world.getEntitiesByClass(
-            HappyGhastEntity.class, 
-            player.getBoundingBox().expand(maxDistance),
-            e -> !e.isSpectator() && e.canHit()
-        )) {
-            // 检查实体的边界框是否与玩家的视线相交
-            Vec3d hitPos = entity.getBoundingBox().raycast(eyePos, endPos).orElse(null);
-            if (hitPos != null) {
-                // 计算到实体的距离
-                double distance = eyePos.distanceTo(hitPos);
-                if (distance <= maxDistance) {
-                    // 返回实体命中结果
-                    return new EntityHitResult(entity, hitPos);
-                }
-            }
-        }
-        
-        return null;
+        // 射线终点限制在最大距离内，命中点一定不超过最大距离
+        return GhastSpatialIndex.raycast(player.getEntityWorld(), eyePos, endPos);
     }
     
     /**
@@ -158,20 +367,29 @@ public class NetworkHandler {
             return accessor.getGhastData();
         }
         // 如果访问器不可用，返回新数据（不应该发生）
-        return new HappyGhastData();
+        return HappyGhastData.detached();
     }
     
     /**
-     * 保存快乐恶魂的数据
-     * 通过访问器接口保存数据
+     * 根据等级设置快乐恶魂的最大血量
+     * 只在等级变化或实体加载时调用，不需要每tick检查
      * 
      * @param ghast 快乐恶魂实体
-     * @param data 要保存的数据
+     * @param data 快乐恶魂数据
      */
-    public static void saveGhastData(HappyGhastEntity ghast, HappyGhastData data) {
-        // 使用访问器接口设置数据
-        if (ghast instanceof HappyGhastDataAccessor accessor) {
-            accessor.setGhastData(data);
+    public static void applyMaxHealth(HappyGhastEntity ghast, HappyGhastData data) {
+        float maxHealth = data.getMaxHealth();
+        
+        // 获取当前血量上限属性
+        var maxHealthAttribute = ghast.getAttributeInstance(EntityAttributes.MAX_HEALTH);
+        if (maxHealthAttribute != null && maxHealthAttribute.getBaseValue() != maxHealth) {
+            // 设置新的血量上限
+            maxHealthAttribute.setBaseValue(maxHealth);
+            
+            // 如果当前血量超过新上限，调整当前血量
+            if (ghast.getHealth() > maxHealth) {
+                ghast.setHealth(maxHealth);
+            }
         }
     }
 }
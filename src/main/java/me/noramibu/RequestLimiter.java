@@ -0,0 +1,169 @@
+package me.noramibu;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 客户端请求限流器
+ * 每个玩家、每种请求各有一个令牌桶，防止按住或用宏连按按键刷屏服务端和日志
+ * 同一tick内针对同一目标的重复请求合并为一次处理
+ * 
+ * 只在服务端主线程中调用
+ */
+public class RequestLimiter {
+    /**
+     * 受限流的请求类型
+     */
+    public enum Type {
+        // H键问候：最多连续4次，之后每10tick恢复1次
+        GREET(4, 10),
+        // 请求打开GUI：最多连续4次，之后每5tick恢复1次
+        OPEN_GUI(4, 5),
+        // 查询舰队状态：最多连续2次，之后每20tick恢复1次
+        FLEET_QUERY(2, 20),
+        // 打开货舱：最多连续2次，之后每10tick恢复1次
+        OPEN_CARGO(2, 10),
+        // 货舱查找：最多连续2次，之后每10tick恢复1次
+        CARGO_FIND(2, 10),
+        // 请求重新发送完整数据：最多连续16次，之后每tick恢复1次
+        RESYNC(16, 1);
+        
+        private final int capacity;
+        private final int refillTicks;
+        
+        Type(int capacity, int refillTicks) {
+            this.capacity = capacity;
+            this.refillTicks = refillTicks;
+        }
+    }
+    
+    // 每丢弃多少个请求输出一次警告
+    private static final int WARN_INTERVAL = 200;
+    
+    /**
+     * 单个令牌桶
+     */
+    private static final class Bucket {
+        int tokens;
+        long lastRefillTick;
+        long lastAcceptedTick = -1;
+        int lastAcceptedTarget;
+    }
+    
+    /**
+     * 单个玩家的限流状态
+     */
+    private static final class PlayerState {
+        final Bucket[] buckets = new Bucket[Type.values().length];
+        long dropped;
+        long coalesced;
+    }
+    
+    // 玩家UUID -> 限流状态
+    private static final Map<UUID, PlayerState> STATES = new HashMap<>();
+    
+    // 所有玩家累计丢弃和合并的请求数
+    private static long totalDropped;
+    private static long totalCoalesced;
+    
+    /**
+     * 注册清理所需的事件
+     */
+    public static void register() {
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) ->
+            STATES.remove(handler.getPlayer().getUuid()));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> STATES.clear());
+    }
+    
+    /**
+     * 尝试处理一个没有目标的请求
+     * @param player 发送请求的玩家
+     * @param type 请求类型
+     * @return 允许处理返回true；同一tick内的重复请求或令牌耗尽时返回false
+     */
+    public static boolean tryAcquire(ServerPlayerEntity player, Type type) {
+        return tryAcquire(player, type, 0);
+    }
+    
+    /**
+     * 尝试处理一个针对某个目标的请求
+     * 同一tick内只有目标相同的请求会被合并，目标不同的请求照常消耗令牌
+     * 
+     * @param player 发送请求的玩家
+     * @param type 请求类型
+     * @param target 请求的目标，例如实体ID
+     * @return 允许处理返回true；同一tick内的重复请求或令牌耗尽时返回false
+     */
+    public static boolean tryAcquire(ServerPlayerEntity player, Type type, int target) {
+        long now = player.getEntityWorld().getServer().getTicks();
+        PlayerState state = STATES.computeIfAbsent(player.getUuid(), uuid -> new PlayerState());
+        
+        Bucket bucket = state.buckets[type.ordinal()];
+        if (bucket == null) {
+            bucket = new Bucket();
+            bucket.tokens = type.capacity;
+            bucket.lastRefillTick = now;
+            state.buckets[type.ordinal()] = bucket;
+        }
+        
+        // 同一tick内已经处理过同一目标的同类请求，合并到那一次中
+        if (bucket.lastAcceptedTick == now && bucket.lastAcceptedTarget == target) {
+            state.coalesced++;
+            totalCoalesced++;
+            return false;
+        }
+        
+        // 按经过的tick补充令牌
+        long refill = (now - bucket.lastRefillTick) / type.refillTicks;
+        if (refill > 0) {
+            bucket.tokens = (int) Math.min(type.capacity, bucket.tokens + refill);
+            bucket.lastRefillTick += refill * type.refillTicks;
+        }
+        
+        if (bucket.tokens <= 0) {
+            state.dropped++;
+            totalDropped++;
+            if (state.dropped % WARN_INTERVAL == 0) {
+                Chestonghast.LOGGER.warn("玩家 {} 的请求过于频繁，已累计丢弃 {} 个请求",
+                    player.getName().getString(), state.dropped);
+            }
+            return false;
+        }
+        
+        bucket.tokens--;
+        bucket.lastAcceptedTick = now;
+        bucket.lastAcceptedTarget = target;
+        return true;
+    }
+    
+    /**
+     * 获取玩家被丢弃的请求数
+     * @param uuid 玩家UUID
+     * @return 本次连接中被丢弃的请求数
+     */
+    public static long getDropped(UUID uuid) {
+        PlayerState state = STATES.get(uuid);
+        return state == null ? 0 : state.dropped;
+    }
+    
+    /**
+     * 获取所有玩家累计丢弃的请求数
+     * @return 丢弃的请求数
+     */
+    public static long getTotalDropped() {
+        return totalDropped;
+    }
+    
+    /**
+     * 获取所有玩家累计合并的请求数
+     * @return 合并的请求数
+     */
+    public static long getTotalCoalesced() {
+        return totalCoalesced;
+    }
+}
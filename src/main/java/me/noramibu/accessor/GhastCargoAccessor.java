@@ -0,0 +1,44 @@
+package me.noramibu.accessor;
+
+import net.minecraft.inventory.SimpleInventory;
+
+/**
+ * 快乐恶魂货舱模块访问器接口
+ * 无实体货舱模式下，箱子的格子直接保存在恶魂上，每个模块相当于一个箱子矿车
+ * 模块数量通过CargoModulesPayload同步到客户端，用于渲染挂在恶魂身上的箱子
+ * 
+ * 注意：此接口必须放在非mixin包中，以便可以被普通代码引用
+ */
+public interface GhastCargoAccessor {
+    /**
+     * 获取货舱模块数量
+     * @return 0到GhastCargo.MAX_MODULES之间
+     */
+    int getCargoModuleCount();
+    
+    /**
+     * 设置货舱模块数量，不同步
+     * 读取存档和客户端收到同步时调用
+     * @param count 模块数量
+     */
+    void setCargoModuleCount(int count);
+    
+    /**
+     * 增加一个货舱模块
+     * @return 已达到上限时返回false
+     */
+    boolean addCargoModule();
+    
+    /**
+     * 获取一个货舱模块的物品栏
+     * @param index 模块序号，小于getCargoModuleCount()
+     * @return 27格的物品栏，服务端才有内容
+     */
+    SimpleInventory getCargoModule(int index);
+    
+    /**
+     * 移除所有货舱模块
+     * 物品需要在调用前取出
+     */
+    void clearCargoModules();
+}
@@ -1,23 +1,31 @@
 package me.noramibu.accessor;
 
+import me.noramibu.data.GhastDataStorage;
 import me.noramibu.data.HappyGhastData;
 
 /**
  * 快乐恶魂数据访问器接口
  * 用于在Mixin中存储和访问快乐恶魂的自定义数据
+ * 数据以紧凑形式直接存放在Mixin的字段中（见GhastDataStorage）
  * 
  * 注意：此接口必须放在非mixin包中，以便可以被普通代码引用
  */
-public interface HappyGhastDataAccessor {
+public interface HappyGhastDataAccessor extends GhastDataStorage {
     /**
      * 获取快乐恶魂数据
-     * @return 快乐恶魂数据对象
+     * @return 这只恶魂的数据视图，每次返回同一个对象
      */
     HappyGhastData getGhastData();
     
     /**
-     * 设置快乐恶魂数据
-     * @param data 快乐恶魂数据对象
+     * 获取空间索引中记录的区块段
+     * @return 区块段坐标，未加入索引时返回GhastSpatialIndex.UNINDEXED
      */
-    void setGhastData(HappyGhastData data);
+    long getIndexedSection();
+    
+    /**
+     * 设置空间索引中记录的区块段
+     * @param section 区块段坐标
+     */
+    void setIndexedSection(long section);
 }
@@ -0,0 +1,217 @@
+package me.noramibu.cargo;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.Registries;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 合并多个箱子矿车的虚拟货舱
+ * 把每个矿车的27格按顺序拼成一个物品栏，第一个矿车占0~26格，第二个占27~53格，以此类推
+ * 
+ * 同时维护每种物品的总数和已占用的格子数
+ * 每格记录上一次看到的物品和数量，变化时只按差值调整总数，不需要重新统计整个货舱
+ * 矿车也可能被单独打开或被漏斗修改，物品堆叠也可能被原地修改，因此查询前先用refresh逐格比对
+ */
+public class CargoInventory implements Inventory {
+    // 每个箱子矿车的格子数
+    public static final int CART_SIZE = 27;
+    
+    // 组成货舱的物品栏，服务端为箱子矿车，客户端为同样大小的空物品栏
+    private final Inventory[] parts;
+    
+    // 每格上一次记录的物品和数量
+    private final Item[] slotItems;
+    private final int[] slotCounts;
+    
+    // 物品 -> 货舱中的总数
+    private final Object2IntOpenHashMap<Item> counts = new Object2IntOpenHashMap<>();
+    private int usedSlots;
+    
+    // 每次记录的内容变化时递增，客户端据此判断搜索结果是否需要重新计算
+    private int revision;
+    
+    public CargoInventory(Inventory... parts) {
+        this.parts = parts;
+        this.slotItems = new Item[parts.length * CART_SIZE];
+        this.slotCounts = new int[parts.length * CART_SIZE];
+        refresh();
+    }
+    
+    /**
+     * 逐格比对并更新物品总数
+     * 只比较物品和数量，没有变化的格子不做任何修改
+     */
+    public void refresh() {
+        for (int slot = 0; slot < slotItems.length; slot++) {
+            track(slot);
+        }
+    }
+    
+    /**
+     * 更新一格的记录，按差值调整总数
+     */
+    private void track(int slot) {
+        ItemStack stack = getStack(slot);
+        Item item = stack.isEmpty() ? null : stack.getItem();
+        int count = stack.isEmpty() ? 0 : stack.getCount();
+        Item oldItem = slotItems[slot];
+        int oldCount = slotCounts[slot];
+        if (item == oldItem && count == oldCount) {
+            return;
+        }
+        
+        if (oldItem != null) {
+            if (counts.addTo(oldItem, -oldCount) == oldCount) {
+                counts.removeInt(oldItem);
+            }
+            usedSlots--;
+        }
+        if (item != null) {
+            counts.addTo(item, count);
+            usedSlots++;
+        }
+        slotItems[slot] = item;
+        slotCounts[slot] = count;
+        revision++;
+    }
+    
+    /**
+     * 获取货舱中某种物品的总数
+     * 调用前需要先refresh，服务端每tick同步时已经刷新过
+     * @param item 物品
+     * @return 总数
+     */
+    public int count(Item item) {
+        return counts.getInt(item);
+    }
+    
+    /**
+     * 获取所有物品的总数
+     * @return 只读使用，物品 -> 总数
+     */
+    public Object2IntMap<Item> getCounts() {
+        return counts;
+    }
+    
+    public int getUsedSlots() { return usedSlots; }
+    public int getRevision() { return revision; }
+    
+    /**
+     * 整理货舱
+     * 合并相同的物品（包括组件完全相同），按物品注册顺序排列，空格集中到末尾
+     * 只有内容变化的格子会在下一次同步时发送给客户端
+     */
+    public void sort() {
+        List<ItemStack> merged = new ArrayList<>(usedSlots);
+        for (int slot = 0; slot < size(); slot++) {
+            ItemStack stack = getStack(slot);
+            if (stack.isEmpty()) continue;
+            
+            ItemStack remaining = stack.copy();
+            for (ItemStack target : merged) {
+                if (remaining.isEmpty()) break;
+                if (ItemStack.areItemsAndComponentsEqual(target, remaining)) {
+                    int moved = Math.min(remaining.getCount(), getMaxCount(target) - target.getCount());
+                    target.increment(moved);
+                    remaining.decrement(moved);
+                }
+            }
+            if (!remaining.isEmpty()) {
+                merged.add(remaining);
+            }
+        }
+        
+        merged.sort(Comparator.comparingInt((ItemStack stack) -> Registries.ITEM.getRawId(stack.getItem()))
+            .thenComparing(Comparator.comparingInt(ItemStack::getCount).reversed()));
+        
+        for (int slot = 0; slot < size(); slot++) {
+            ItemStack target = slot < merged.size() ? merged.get(slot) : ItemStack.EMPTY;
+            ItemStack current = getStack(slot);
+            // 内容没有变化的格子保持原来的对象，不产生同步
+            if (!ItemStack.areEqual(current, target)) {
+                setStack(slot, target);
+            }
+        }
+    }
+    
+    @Override
+    public int size() {
+        return slotItems.length;
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        refresh();
+        return usedSlots == 0;
+    }
+    
+    @Override
+    public ItemStack getStack(int slot) {
+        return parts[slot / CART_SIZE].getStack(slot % CART_SIZE);
+    }
+    
+    @Override
+    public ItemStack removeStack(int slot, int amount) {
+        ItemStack removed = parts[slot / CART_SIZE].removeStack(slot % CART_SIZE, amount);
+        track(slot);
+        return removed;
+    }
+    
+    @Override
+    public ItemStack removeStack(int slot) {
+        ItemStack removed = parts[slot / CART_SIZE].removeStack(slot % CART_SIZE);
+        track(slot);
+        return removed;
+    }
+    
+    @Override
+    public void setStack(int slot, ItemStack stack) {
+        parts[slot / CART_SIZE].setStack(slot % CART_SIZE, stack);
+        track(slot);
+    }
+    
+    @Override
+    public void markDirty() {
+        for (Inventory part : parts) {
+            part.markDirty();
+        }
+    }
+    
+    @Override
+    public boolean canPlayerUse(PlayerEntity player) {
+        for (Inventory part : parts) {
+            if (!part.canPlayerUse(player)) return false;
+        }
+        return true;
+    }
+    
+    @Override
+    public void onOpen(PlayerEntity player) {
+        for (Inventory part : parts) {
+            part.onOpen(player);
+        }
+    }
+    
+    @Override
+    public void onClose(PlayerEntity player) {
+        for (Inventory part : parts) {
+            part.onClose(player);
+        }
+    }
+    
+    @Override
+    public void clear() {
+        for (Inventory part : parts) {
+            part.clear();
+        }
+        refresh();
+    }
+}
@@ -0,0 +1,216 @@
+package me.noramibu.cargo;
+
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.entity.vehicle.ChestMinecartEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.screen.slot.Slot;
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.List;
+
+/**
+ * 快乐恶魂货舱界面
+ * 在一个界面中显示恶魂身上所有箱子矿车的格子，每个矿车3行
+ * 
+ * 格子内容通过原版的界面同步发送：打开时发送一次完整内容，之后每tick只发送变化的格子
+ * 客户端发送按钮点击整理货舱，服务端整理后同样只同步变化的格子
+ */
+public class CargoScreenHandler extends ScreenHandler {
+    // 按钮ID：整理货舱
+    public static final int BUTTON_SORT = 0;
+    
+    // 界面与恶魂的最大距离（方块）
+    private static final double MAX_DISTANCE = 10.0;
+    
+    private final CargoInventory inventory;
+    private final int rows;
+    
+    // 服务端：货舱所属的恶魂和打开时的矿车，客户端分别为null和空列表
+    private final HappyGhastEntity ghast;
+    private final List<ChestMinecartEntity> carts;
+    
+    // 上一次更新货舱索引时的内容版本
+    private int indexedRevision = -1;
+    
+    /**
+     * 客户端构造函数
+     * 由界面类型根据服务端发送的矿车数量创建
+     */
+    public CargoScreenHandler(int syncId, PlayerInventory playerInventory, Integer cartCount) {
+        this(syncId, playerInventory, new CargoInventory(createClientParts(cartCount)), null, List.of());
+    }
+    
+    /**
+     * 服务端构造函数
+     * @param ghast 货舱所属的恶魂
+     * @param parts 组成货舱的物品栏（箱子矿车和货舱模块）
+     * @param carts 其中的箱子矿车，用于检查界面是否仍然有效
+     */
+    public CargoScreenHandler(int syncId, PlayerInventory playerInventory, HappyGhastEntity ghast,
+                              List<Inventory> parts, List<ChestMinecartEntity> carts) {
+        this(syncId, playerInventory, new CargoInventory(parts.toArray(new Inventory[0])), ghast, carts);
+    }
+    
+    private CargoScreenHandler(int syncId, PlayerInventory playerInventory, CargoInventory inventory,
+                               HappyGhastEntity ghast, List<ChestMinecartEntity> carts) {
+        super(GhastCargo.SCREEN_HANDLER, syncId);
+        this.inventory = inventory;
+        this.rows = inventory.size() / 9;
+        this.ghast = ghast;
+        this.carts = carts;
+        inventory.onOpen(playerInventory.player);
+        
+        // 货舱格子，布局与原版箱子界面相同
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < 9; col++) {
+                addSlot(new Slot(inventory, col + row * 9, 8 + col * 18, 18 + row * 18));
+            }
+        }
+        
+        // 玩家物品栏和快捷栏
+        addPlayerSlots(playerInventory, 8, 18 + rows * 18 + 14);
+    }
+    
+    private static Inventory[] createClientParts(int cartCount) {
+        Inventory[] parts = new Inventory[Math.max(1, Math.min(cartCount, GhastCargo.MAX_PARTS))];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new SimpleInventory(CargoInventory.CART_SIZE);
+        }
+        return parts;
+    }
+    
+    public CargoInventory getInventory() { return inventory; }
+    public int getRows() { return rows; }
+    
+    /**
+     * 检查界面是否仍然有效
+     * 恶魂还在附近，打开时的矿车都还挂在恶魂上
+     */
+    @Override
+    public boolean canUse(PlayerEntity player) {
+        if (ghast == null) {
+            return true;
+        }
+        if (!ghast.isAlive() || player.squaredDistanceTo(ghast) > MAX_DISTANCE * MAX_DISTANCE) {
+            return false;
+        }
+        for (ChestMinecartEntity cart : carts) {
+            if (cart.isRemoved() || cart.getVehicle() != ghast) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 每tick同步前刷新物品总数，矿车可能被单独打开或被漏斗修改
+     * 内容有变化时把新的物品总数交给货舱索引
+     */
+    @Override
+    public void sendContentUpdates() {
+        inventory.refresh();
+        if (ghast != null && inventory.getRevision() != indexedRevision
+            && ghast.getEntityWorld() instanceof ServerWorld world) {
+            indexedRevision = inventory.getRevision();
+            GhastCargoIndex.update(world, ghast, inventory.getCounts());
+        }
+        super.sendContentUpdates();
+    }
+    
+    /**
+     * 处理按钮点击
+     */
+    @Override
+    public boolean onButtonClick(PlayerEntity player, int id) {
+        if (id == BUTTON_SORT) {
+            inventory.refresh();
+            inventory.sort();
+            inventory.markDirty();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Shift+点击快速移动
+     * 货舱到物品栏使用原版逻辑；物品栏到货舱先按物品总数判断有没有可以合并的堆叠
+     */
+    @Override
+    public ItemStack quickMove(PlayerEntity player, int slotIndex) {
+        Slot slot = this.slots.get(slotIndex);
+        if (!slot.hasStack()) {
+            return ItemStack.EMPTY;
+        }
+        
+        ItemStack stack = slot.getStack();
+        ItemStack original = stack.copy();
+        int cargoSize = inventory.size();
+        
+        if (slotIndex < cargoSize) {
+            if (!insertItem(stack, cargoSize, this.slots.size(), true)) {
+                return ItemStack.EMPTY;
+            }
+        } else if (!insertIntoCargo(stack)) {
+            return ItemStack.EMPTY;
+        }
+        
+        if (stack.isEmpty()) {
+            slot.setStack(ItemStack.EMPTY);
+        } else {
+            slot.markDirty();
+        }
+        return original;
+    }
+    
+    /**
+     * 把物品放入货舱
+     * 货舱中没有这种物品时跳过合并扫描，货舱已满时跳过空格扫描
+     * @return 至少放入了一个时返回true
+     */
+    private boolean insertIntoCargo(ItemStack stack) {
+        inventory.refresh();
+        int before = stack.getCount();
+        
+        // 合并到已有的堆叠
+        if (stack.isStackable() && inventory.count(stack.getItem()) > 0) {
+            for (int i = 0; i < inventory.size() && !stack.isEmpty(); i++) {
+                ItemStack target = inventory.getStack(i);
+                if (!target.isEmpty() && ItemStack.areItemsAndComponentsEqual(target, stack)) {
+                    int moved = Math.min(stack.getCount(), inventory.getMaxCount(target) - target.getCount());
+                    if (moved > 0) {
+                        target.increment(moved);
+                        stack.decrement(moved);
+                        this.slots.get(i).markDirty();
+                    }
+                }
+            }
+        }
+        
+        // 放入空格
+        if (inventory.getUsedSlots() < inventory.size()) {
+            for (int i = 0; i < inventory.size() && !stack.isEmpty(); i++) {
+                Slot target = this.slots.get(i);
+                if (!target.hasStack() && target.canInsert(stack)) {
+                    target.setStack(stack.split(Math.min(stack.getCount(), target.getMaxItemCount(stack))));
+                }
+            }
+        }
+        
+        inventory.refresh();
+        return stack.getCount() != before;
+    }
+    
+    /**
+     * 界面关闭时通知所有矿车
+     */
+    @Override
+    public void onClosed(PlayerEntity player) {
+        super.onClosed(player);
+        inventory.onClose(player);
+    }
+}
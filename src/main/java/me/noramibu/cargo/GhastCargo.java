@@ -0,0 +1,242 @@
+package me.noramibu.cargo;
+
+import me.noramibu.Chestonghast;
+import me.noramibu.NetworkHandler;
+import me.noramibu.accessor.GhastCargoAccessor;
+import me.noramibu.metrics.GhastMetrics;
+import me.noramibu.network.CargoModulesPayload;
+import net.fabricmc.fabric.api.entity.event.v1.ServerLivingEntityEvents;
+import net.fabricmc.fabric.api.networking.v1.EntityTrackingEvents;
+import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.fabricmc.fabric.api.gamerule.v1.GameRuleFactory;
+import net.fabricmc.fabric.api.gamerule.v1.GameRuleRegistry;
+import net.fabricmc.fabric.api.screenhandler.v1.ExtendedScreenHandlerFactory;
+import net.fabricmc.fabric.api.screenhandler.v1.ExtendedScreenHandlerType;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.entity.vehicle.ChestMinecartEntity;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.network.codec.PacketCodecs;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.Registry;
+import net.minecraft.screen.ScreenHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.ItemScatterer;
+import net.minecraft.world.GameRules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 快乐恶魂货舱
+ * 把恶魂身上所有箱子矿车合并成一个界面打开
+ * 
+ * 开启游戏规则chestOnGhastEntityFreeCargo后，新放置的箱子矿车不再生成实体，
+ * 而是作为货舱模块直接保存在恶魂上，不占用实体追踪和乘客同步
+ * 已有的箱子矿车实体不受影响，两种货舱可以同时存在并一起打开
+ */
+public class GhastCargo {
+    // 每只恶魂最多的货舱模块数量，与箱子矿车的乘客上限相同
+    public static final int MAX_MODULES = 3;
+    
+    // 箱子矿车和货舱模块合计的上限，货舱界面最多9行，不需要滚动
+    public static final int MAX_PARTS = 3;
+    
+    // 无实体货舱模式的游戏规则，默认关闭
+    public static final GameRules.Key<GameRules.BooleanRule> ENTITY_FREE_CARGO =
+        GameRuleRegistry.register("chestOnGhastEntityFreeCargo", GameRules.Category.MISC,
+            GameRuleFactory.createBooleanRule(false));
+    
+    // 货舱界面类型，打开时向客户端发送矿车数量，客户端据此确定行数
+    public static final ExtendedScreenHandlerType<CargoScreenHandler, Integer> SCREEN_HANDLER =
+        new ExtendedScreenHandlerType<>(CargoScreenHandler::new, PacketCodecs.VAR_INT);
+    
+    // 查找目标恶魂的最大距离
+    private static final double REACH = 5.0;
+    
+    /**
+     * 注册货舱界面类型
+     */
+    public static void register() {
+        Registry.register(Registries.SCREEN_HANDLER, Identifier.of(Chestonghast.MOD_ID, "cargo"), SCREEN_HANDLER);
+        
+        // 玩家开始追踪恶魂时同步货舱模块数量，只发给安装了本模组的客户端
+        EntityTrackingEvents.START_TRACKING.register((entity, player) -> {
+            if (entity instanceof HappyGhastEntity ghast && entity instanceof GhastCargoAccessor cargo
+                && cargo.getCargoModuleCount() > 0) {
+                sendModules(player, ghast, cargo.getCargoModuleCount());
+            }
+        });
+        
+        // 恶魂死亡时掉落货舱模块中的物品和对应的箱子矿车
+        ServerLivingEntityEvents.AFTER_DEATH.register((entity, damageSource) -> {
+            if (entity instanceof HappyGhastEntity ghast && entity.getEntityWorld() instanceof ServerWorld world) {
+                dropModules(world, ghast);
+            }
+        });
+    }
+    
+    /**
+     * 检查世界是否开启了无实体货舱模式
+     * 
+     * @param world 世界
+     * @return 开启时返回true
+     */
+    public static boolean isEntityFree(ServerWorld world) {
+        return world.getGameRules().getBoolean(ENTITY_FREE_CARGO);
+    }
+    
+    /**
+     * 向所有追踪恶魂的玩家同步货舱模块数量
+     * 模块数量变化时调用
+     * 
+     * @param ghast 快乐恶魂
+     */
+    public static void syncModules(HappyGhastEntity ghast) {
+        if (!(ghast.getEntityWorld() instanceof ServerWorld) || !(ghast instanceof GhastCargoAccessor cargo)) {
+            return;
+        }
+        for (ServerPlayerEntity player : PlayerLookup.tracking(ghast)) {
+            sendModules(player, ghast, cargo.getCargoModuleCount());
+        }
+    }
+    
+    private static void sendModules(ServerPlayerEntity player, HappyGhastEntity ghast, int modules) {
+        if (ServerPlayNetworking.canSend(player, CargoModulesPayload.ID)) {
+            CargoModulesPayload payload = new CargoModulesPayload(ghast.getId(), modules);
+            ServerPlayNetworking.send(player, payload);
+            GhastMetrics.countSent(GhastMetrics.Packet.CARGO_MODULES, payload.encodedSize());
+        }
+    }
+    
+    /**
+     * 获取恶魂身上箱子矿车和货舱模块的总数
+     * 
+     * @param ghast 快乐恶魂
+     * @return 总数
+     */
+    public static int getPartCount(HappyGhastEntity ghast) {
+        int modules = ghast instanceof GhastCargoAccessor cargo ? cargo.getCargoModuleCount() : 0;
+        return getCarts(ghast).size() + modules;
+    }
+    
+    /**
+     * 掉落恶魂身上货舱模块的物品，每个模块同时掉落一个箱子矿车
+     */
+    private static void dropModules(ServerWorld world, HappyGhastEntity ghast) {
+        if (!(ghast instanceof GhastCargoAccessor cargo) || cargo.getCargoModuleCount() == 0) {
+            return;
+        }
+        int modules = cargo.getCargoModuleCount();
+        for (int i = 0; i < modules; i++) {
+            ItemScatterer.spawn(world, ghast, cargo.getCargoModule(i));
+        }
+        ghast.dropStack(world, new ItemStack(Items.CHEST_MINECART, modules));
+        cargo.clearCargoModules();
+    }
+    
+    /**
+     * 处理打开货舱请求
+     * 玩家乘坐快乐恶魂时打开所乘坐的恶魂，否则打开视线上的恶魂
+     * 
+     * @param player 请求的玩家
+     */
+    public static void handleOpen(ServerPlayerEntity player) {
+        HappyGhastEntity ghast = player.getVehicle() instanceof HappyGhastEntity riding
+            ? riding
+            : NetworkHandler.raycastGhast(player, REACH);
+        if (ghast != null) {
+            open(player, ghast);
+        }
+    }
+    
+    /**
+     * 打开恶魂的货舱
+     * 
+     * @param player 玩家
+     * @param ghast 快乐恶魂
+     * @return 恶魂身上有箱子矿车或货舱模块并已打开界面时返回true
+     */
+    public static boolean open(ServerPlayerEntity player, HappyGhastEntity ghast) {
+        List<ChestMinecartEntity> carts = getCarts(ghast);
+        List<Inventory> parts = getParts(ghast, carts);
+        if (parts.isEmpty()) {
+            player.sendMessage(Text.translatable("message.chest-on-ghast.no_cargo"), true);
+            return false;
+        }
+        
+        player.openHandledScreen(new ExtendedScreenHandlerFactory<Integer>() {
+            @Override
+            public Integer getScreenOpeningData(ServerPlayerEntity player) {
+                return parts.size();
+            }
+            
+            @Override
+            public Text getDisplayName() {
+                return Text.translatable("gui.chest-on-ghast.cargo");
+            }
+            
+            @Override
+            public ScreenHandler createMenu(int syncId, PlayerInventory playerInventory, PlayerEntity player) {
+                return new CargoScreenHandler(syncId, playerInventory, ghast, parts, carts);
+            }
+        });
+        return true;
+    }
+    
+    /**
+     * 创建恶魂货舱的合并物品栏，用于统计物品
+     * 
+     * @param ghast 快乐恶魂
+     * @return 合并物品栏，没有箱子矿车和货舱模块时返回null
+     */
+    public static CargoInventory createInventory(HappyGhastEntity ghast) {
+        List<Inventory> parts = getParts(ghast, getCarts(ghast));
+        return parts.isEmpty() ? null : new CargoInventory(parts.toArray(new Inventory[0]));
+    }
+    
+    /**
+     * 获取组成货舱的物品栏，箱子矿车在前，货舱模块在后
+     * 最多MAX_PARTS个，超出的部分（旧存档中可能存在）不显示，恶魂死亡时照常掉落
+     * 
+     * @param ghast 快乐恶魂
+     * @param carts 恶魂身上的箱子矿车
+     * @return 物品栏列表
+     */
+    private static List<Inventory> getParts(HappyGhastEntity ghast, List<ChestMinecartEntity> carts) {
+        List<Inventory> parts = new ArrayList<>(MAX_PARTS);
+        for (int i = 0; i < Math.min(carts.size(), MAX_PARTS); i++) {
+            parts.add(carts.get(i));
+        }
+        if (ghast instanceof GhastCargoAccessor cargo) {
+            for (int i = 0; i < cargo.getCargoModuleCount() && parts.size() < MAX_PARTS; i++) {
+                parts.add(cargo.getCargoModule(i));
+            }
+        }
+        return parts;
+    }
+    
+    /**
+     * 获取恶魂身上的箱子矿车，按乘坐顺序排列
+     * 
+     * @param ghast 快乐恶魂
+     * @return 箱子矿车列表
+     */
+    public static List<ChestMinecartEntity> getCarts(HappyGhastEntity ghast) {
+        List<ChestMinecartEntity> carts = new ArrayList<>(3);
+        for (Entity passenger : ghast.getPassengerList()) {
+            if (passenger instanceof ChestMinecartEntity cart && !cart.isRemoved()) {
+                carts.add(cart);
+            }
+        }
+        return carts;
+    }
+}
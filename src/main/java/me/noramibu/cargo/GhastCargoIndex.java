@@ -0,0 +1,470 @@
+package me.noramibu.cargo;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMaps;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import me.noramibu.Chestonghast;
+import me.noramibu.NetworkHandler;
+import me.noramibu.ownership.GhastOwnershipIndex;
+import me.noramibu.ownership.GhastRegistryWriter;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.item.Item;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.nbt.NbtSizeTracker;
+import net.minecraft.nbt.NbtString;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.dimension.DimensionType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 快乐恶魂货舱索引
+ * 每个世界一份，按 主人 -> 物品 -> (恶魂UUID -> 数量) 记录有主人的恶魂货舱中的物品
+ * 查找玩家某种物品在哪些恶魂上只需要两次哈希查找，不需要遍历实体或加载区块
+ * 
+ * 每只恶魂同时保存一份物品总数，更新时按差值修改索引：
+ * 货舱界面的内容变化时直接更新；箱子矿车或货舱模块被单独修改（例如漏斗）、
+ * 箱子矿车上下恶魂以及恶魂加载时标记为待核对，在tick结束时统一重新统计，同一tick的多次变化只统计一次
+ * 区块卸载时保留最后的记录
+ * 有变化时与主人索引一样交给后台线程写入 data/chest-on-ghast_cargo.dat，未加载的恶魂也能查到
+ * 
+ * 只在服务端主线程中调用（快照写入除外）
+ */
+public class GhastCargoIndex {
+    /**
+     * 一条查找结果：某只恶魂上有多少个查找的物品
+     * 已加载的恶魂为实时位置，未加载的为主人索引中的最后已知位置
+     */
+    public record Hit(ServerWorld world, UUID ghast, BlockPos pos, int count, boolean loaded) {}
+    
+    /**
+     * 一只恶魂的货舱记录
+     */
+    private static final class Record {
+        final UUID owner;
+        final Object2IntOpenHashMap<Item> counts;
+        
+        Record(UUID owner, Object2IntOpenHashMap<Item> counts) {
+            this.owner = owner;
+            this.counts = counts;
+        }
+    }
+    
+    // 写入间隔（tick）
+    private static final int FLUSH_INTERVAL_TICKS = 100;
+    
+    // 存档格式
+    private static final String FILE_NAME = Chestonghast.MOD_ID + "_cargo.dat";
+    private static final byte FORMAT_VERSION = 1;
+    private static final String KEY_VERSION = "V";
+    private static final String KEY_PALETTE = "P";
+    private static final String KEY_ENTRIES = "E";
+    
+    // 每个已加载世界的索引
+    private static final Map<ServerWorld, GhastCargoIndex> INDEXES = new HashMap<>();
+    
+    // 恶魂UUID -> 货舱记录
+    private final Map<UUID, Record> byGhast = new HashMap<>();
+    
+    // 主人UUID -> 物品 -> (恶魂UUID -> 数量)
+    private final Map<UUID, Map<Item, Object2IntOpenHashMap<UUID>>> byOwner = new HashMap<>();
+    
+    // 当前已加载的恶魂，查找时提供实时位置
+    private final Map<UUID, HappyGhastEntity> loaded = new HashMap<>();
+    
+    // 货舱发生变化、等待在tick结束时重新统计的恶魂
+    private final Set<UUID> pending = new LinkedHashSet<>();
+    
+    // 索引文件
+    private final Path file;
+    
+    // 自上次提交快照以来是否有变化
+    private boolean dirty;
+    
+    private GhastCargoIndex(Path file) {
+        this.file = file;
+    }
+    
+    /**
+     * 获取世界的货舱索引
+     * 索引在世界加载时已经读取，这里正常情况下只是一次哈希查找
+     * @param world 世界
+     * @return 货舱索引
+     */
+    public static GhastCargoIndex get(ServerWorld world) {
+        return INDEXES.computeIfAbsent(world, GhastCargoIndex::load);
+    }
+    
+    /**
+     * 注册增量更新和定期写入所需的事件
+     */
+    public static void register() {
+        // 世界加载时读取索引，之后的实体事件和查找命令不再访问磁盘
+        ServerWorldEvents.LOAD.register((server, world) -> get(world));
+        
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            int tick = server.getTicks();
+            for (Map.Entry<ServerWorld, GhastCargoIndex> entry : INDEXES.entrySet()) {
+                GhastCargoIndex index = entry.getValue();
+                
+                // 只重新统计本tick货舱发生变化的恶魂
+                if (!index.pending.isEmpty()) {
+                    for (UUID uuid : index.pending) {
+                        HappyGhastEntity ghast = index.loaded.get(uuid);
+                        if (ghast != null && !ghast.isRemoved()) {
+                            refresh(entry.getKey(), ghast);
+                        }
+                    }
+                    index.pending.clear();
+                }
+                
+                if (tick % FLUSH_INTERVAL_TICKS == 0) {
+                    index.submit();
+                }
+            }
+        });
+        
+        // 世界卸载时提交最后的变化并等待写入完成
+        ServerWorldEvents.UNLOAD.register((server, world) -> {
+            GhastCargoIndex index = INDEXES.remove(world);
+            if (index != null) {
+                index.submit();
+                GhastRegistryWriter.flush();
+            }
+        });
+        
+        // 服务器关闭时写入所有索引
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            for (GhastCargoIndex index : INDEXES.values()) {
+                index.submit();
+            }
+            INDEXES.clear();
+            GhastRegistryWriter.flush();
+        });
+        
+        // 加载时核对货舱，与随后上车的箱子矿车合并为一次统计
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof HappyGhastEntity ghast) {
+                GhastCargoIndex index = get(world);
+                index.loaded.put(ghast.getUuid(), ghast);
+                index.pending.add(ghast.getUuid());
+            }
+        });
+        
+        // 区块卸载时保留最后的货舱记录（此时箱子矿车已经被下车，不能重新统计），
+        // 死亡、被移除或切换维度时从当前世界删除
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (!(entity instanceof HappyGhastEntity ghast)) return;
+            
+            // 世界卸载后才卸载的实体不再重新创建索引
+            GhastCargoIndex index = INDEXES.get(world);
+            if (index == null) return;
+            index.loaded.remove(ghast.getUuid());
+            index.pending.remove(ghast.getUuid());
+            Entity.RemovalReason reason = ghast.getRemovalReason();
+            if (reason != null && reason != Entity.RemovalReason.UNLOADED_TO_CHUNK
+                && reason != Entity.RemovalReason.UNLOADED_WITH_PLAYER) {
+                index.remove(ghast.getUuid());
+            }
+        });
+    }
+    
+    /**
+     * 标记恶魂的货舱发生了变化，在tick结束时重新统计
+     * 箱子矿车或货舱模块的内容变化、箱子矿车上下恶魂时调用
+     * 
+     * @param ghast 快乐恶魂
+     */
+    public static void markDirty(HappyGhastEntity ghast) {
+        if (ghast.getEntityWorld() instanceof ServerWorld world) {
+            GhastCargoIndex index = INDEXES.get(world);
+            if (index != null && index.loaded.containsKey(ghast.getUuid())) {
+                index.pending.add(ghast.getUuid());
+            }
+        }
+    }
+    
+    /**
+     * 重新统计恶魂的货舱并更新索引
+     * 统计箱子矿车和货舱模块，每格比较一次；没有主人的恶魂不统计
+     * 
+     * @param world 恶魂所在世界
+     * @param ghast 快乐恶魂
+     */
+    public static void refresh(ServerWorld world, HappyGhastEntity ghast) {
+        if (NetworkHandler.getOrCreateGhastData(ghast).getOwner() == null) {
+            get(world).remove(ghast.getUuid());
+            return;
+        }
+        CargoInventory inventory = GhastCargo.createInventory(ghast);
+        update(world, ghast, inventory == null ? Object2IntMaps.emptyMap() : inventory.getCounts());
+    }
+    
+    /**
+     * 用已经统计好的物品总数更新索引
+     * 货舱界面每次内容变化时调用
+     * 
+     * @param world 恶魂所在世界
+     * @param ghast 快乐恶魂
+     * @param counts 货舱中每种物品的总数
+     */
+    public static void update(ServerWorld world, HappyGhastEntity ghast, Object2IntMap<Item> counts) {
+        get(world).put(ghast.getUuid(), NetworkHandler.getOrCreateGhastData(ghast).getOwner(), counts);
+    }
+    
+    /**
+     * 写入一只恶魂的物品总数，只修改变化的物品
+     * 没有主人或货舱为空的恶魂不会被记录
+     */
+    private void put(UUID ghast, UUID owner, Object2IntMap<Item> counts) {
+        if (owner == null || counts.isEmpty()) {
+            remove(ghast);
+            return;
+        }
+        
+        Record record = byGhast.get(ghast);
+        if (record != null && !record.owner.equals(owner)) {
+            remove(ghast);
+            record = null;
+        }
+        if (record == null) {
+            record = new Record(owner, new Object2IntOpenHashMap<>());
+            byGhast.put(ghast, record);
+        }
+        
+        // 减少或移除不再有的物品
+        for (Object2IntMap.Entry<Item> entry : Object2IntMaps.fastIterable(record.counts)) {
+            int count = counts.getInt(entry.getKey());
+            if (count != entry.getIntValue()) {
+                setCount(owner, entry.getKey(), ghast, count);
+            }
+        }
+        // 增加新的物品
+        for (Object2IntMap.Entry<Item> entry : Object2IntMaps.fastIterable(counts)) {
+            if (!record.counts.containsKey(entry.getKey())) {
+                setCount(owner, entry.getKey(), ghast, entry.getIntValue());
+            }
+        }
+        
+        if (!record.counts.equals(counts)) {
+            record.counts.clear();
+            record.counts.putAll(counts);
+            dirty = true;
+        }
+    }
+    
+    /**
+     * 修改主人某种物品在一只恶魂上的数量，数量为0时移除
+     */
+    private void setCount(UUID owner, Item item, UUID ghast, int count) {
+        Map<Item, Object2IntOpenHashMap<UUID>> items = byOwner.computeIfAbsent(owner, key -> new HashMap<>());
+        if (count > 0) {
+            items.computeIfAbsent(item, key -> new Object2IntOpenHashMap<>()).put(ghast, count);
+            return;
+        }
+        Object2IntOpenHashMap<UUID> ghasts = items.get(item);
+        if (ghasts != null) {
+            ghasts.removeInt(ghast);
+            if (ghasts.isEmpty()) items.remove(item);
+        }
+        if (items.isEmpty()) byOwner.remove(owner);
+    }
+    
+    /**
+     * 删除一只恶魂的记录
+     * @param ghast 恶魂UUID
+     */
+    public void remove(UUID ghast) {
+        Record record = byGhast.remove(ghast);
+        if (record == null) return;
+        for (Item item : record.counts.keySet()) {
+            setCount(record.owner, item, ghast, 0);
+        }
+        dirty = true;
+    }
+    
+    /**
+     * 查找玩家的某种物品在这个世界的哪些恶魂上
+     * @param owner 玩家UUID
+     * @param item 物品
+     * @return 恶魂UUID -> 数量（只读），没有时返回空映射
+     */
+    public Object2IntMap<UUID> find(UUID owner, Item item) {
+        Map<Item, Object2IntOpenHashMap<UUID>> items = byOwner.get(owner);
+        Object2IntOpenHashMap<UUID> ghasts = items == null ? null : items.get(item);
+        return ghasts == null ? Object2IntMaps.emptyMap() : Object2IntMaps.unmodifiable(ghasts);
+    }
+    
+    /**
+     * 在所有世界中查找玩家的某种物品，按数量从多到少排序
+     * 每个世界两次哈希查找，结果数量与匹配的恶魂数成正比
+     * 
+     * @param server 服务器
+     * @param owner 玩家UUID
+     * @param item 物品
+     * @param limit 最多返回的结果数
+     * @return 查找结果
+     */
+    public static List<Hit> findAll(MinecraftServer server, UUID owner, Item item, int limit) {
+        List<Hit> hits = new ArrayList<>();
+        for (ServerWorld world : server.getWorlds()) {
+            GhastCargoIndex index = get(world);
+            for (Object2IntMap.Entry<UUID> entry : Object2IntMaps.fastIterable(index.find(owner, item))) {
+                UUID ghast = entry.getKey();
+                HappyGhastEntity loaded = index.loaded.get(ghast);
+                BlockPos pos;
+                if (loaded != null) {
+                    pos = loaded.getBlockPos();
+                } else {
+                    // 没有已知位置的恶魂不列出，避免显示一个虚假的坐标
+                    GhastOwnershipIndex.Entry owned = GhastOwnershipIndex.get(world).getEntry(ghast);
+                    if (owned == null) continue;
+                    pos = owned.getPos();
+                }
+                hits.add(new Hit(world, ghast, pos, entry.getIntValue(), loaded != null));
+            }
+        }
+        hits.sort(Comparator.comparingInt(Hit::count).reversed());
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+    
+    /**
+     * 有变化时把快照提交给后台线程
+     */
+    private void submit() {
+        if (dirty) {
+            dirty = false;
+            long[] entries = snapshot();
+            GhastRegistryWriter.submit(file, nbt -> writeSnapshot(nbt, entries));
+        }
+    }
+    
+    /**
+     * 把所有记录打包成一个long数组
+     * 每只恶魂：恶魂UUID(2) + 主人UUID(2) + 物品种类数n + n个(物品原始ID << 32 | 数量)
+     * 在主线程中调用，只复制数值，物品ID的转换和写入交给后台线程
+     */
+    private long[] snapshot() {
+        int size = 0;
+        for (Record record : byGhast.values()) {
+            size += 5 + record.counts.size();
+        }
+        long[] entries = new long[size];
+        int i = 0;
+        for (Map.Entry<UUID, Record> entry : byGhast.entrySet()) {
+            Record record = entry.getValue();
+            entries[i++] = entry.getKey().getMostSignificantBits();
+            entries[i++] = entry.getKey().getLeastSignificantBits();
+            entries[i++] = record.owner.getMostSignificantBits();
+            entries[i++] = record.owner.getLeastSignificantBits();
+            entries[i++] = record.counts.size();
+            for (Object2IntMap.Entry<Item> count : Object2IntMaps.fastIterable(record.counts)) {
+                entries[i++] = ((long) Registries.ITEM.getRawId(count.getKey()) << 32) | (count.getIntValue() & 0xFFFFFFFFL);
+            }
+        }
+        return entries;
+    }
+    
+    /**
+     * 把快照写入NBT，格式为：{V: 格式版本, P: [物品ID], E: [记录]}
+     * 存档中的物品用调色板序号代替原始ID，原始ID在不同的模组组合下可能变化
+     * 由后台写入线程调用
+     */
+    private static void writeSnapshot(NbtCompound nbt, long[] entries) {
+        Map<Integer, Integer> paletteIndex = new HashMap<>();
+        NbtList palette = new NbtList();
+        long[] encoded = entries.clone();
+        
+        int i = 0;
+        while (i < encoded.length) {
+            int n = (int) encoded[i + 4];
+            i += 5;
+            for (int end = i + n; i < end; i++) {
+                int rawId = (int) (encoded[i] >>> 32);
+                int index = paletteIndex.computeIfAbsent(rawId, id -> {
+                    palette.add(NbtString.of(Registries.ITEM.getId(Registries.ITEM.get(id)).toString()));
+                    return palette.size() - 1;
+                });
+                encoded[i] = ((long) index << 32) | (encoded[i] & 0xFFFFFFFFL);
+            }
+        }
+        
+        nbt.putByte(KEY_VERSION, FORMAT_VERSION);
+        nbt.put(KEY_PALETTE, palette);
+        nbt.putLongArray(KEY_ENTRIES, encoded);
+    }
+    
+    /**
+     * 从存档读取世界的索引
+     * 在世界加载时调用；读取前等待尚未完成的写入
+     */
+    private static GhastCargoIndex load(ServerWorld world) {
+        Path directory = DimensionType.getSaveDirectory(
+            world.getRegistryKey(), world.getServer().getSavePath(WorldSavePath.ROOT));
+        GhastCargoIndex index = new GhastCargoIndex(directory.resolve("data").resolve(FILE_NAME));
+        if (!Files.exists(index.file)) return index;
+        
+        GhastRegistryWriter.flush();
+        try {
+            NbtCompound nbt = NbtIo.readCompressed(index.file, NbtSizeTracker.ofUnlimitedBytes());
+            byte version = nbt.getByte(KEY_VERSION).orElse((byte) 0);
+            if (version != FORMAT_VERSION) {
+                Chestonghast.LOGGER.warn("无法识别的快乐恶魂货舱索引格式版本 {}：{}", version, index.file);
+                return index;
+            }
+            
+            // 调色板中已不存在的物品（例如模组被移除）解析为null，读取时跳过
+            NbtList paletteNbt = nbt.getListOrEmpty(KEY_PALETTE);
+            Item[] palette = new Item[paletteNbt.size()];
+            for (int p = 0; p < palette.length; p++) {
+                Identifier id = Identifier.tryParse(paletteNbt.getString(p, ""));
+                palette[p] = id == null ? null : Registries.ITEM.getOptionalValue(id).orElse(null);
+            }
+            
+            long[] entries = nbt.getLongArray(KEY_ENTRIES).orElse(new long[0]);
+            int i = 0;
+            while (i + 5 <= entries.length) {
+                UUID ghast = new UUID(entries[i], entries[i + 1]);
+                UUID owner = new UUID(entries[i + 2], entries[i + 3]);
+                int n = (int) entries[i + 4];
+                i += 5;
+                
+                Object2IntOpenHashMap<Item> counts = new Object2IntOpenHashMap<>(n);
+                for (int end = Math.min(i + n, entries.length); i < end; i++) {
+                    int p = (int) (entries[i] >>> 32);
+                    Item item = p < palette.length ? palette[p] : null;
+                    if (item != null) {
+                        counts.addTo(item, (int) entries[i]);
+                    }
+                }
+                index.put(ghast, owner, counts);
+            }
+            index.dirty = false;
+        } catch (IOException e) {
+            Chestonghast.LOGGER.error("无法读取快乐恶魂货舱索引 {}", index.file, e);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,91 @@
+package me.noramibu.cargo;
+
+import me.noramibu.network.CargoFindPayload;
+import me.noramibu.network.CargoFindResultPayload;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.minecraft.command.argument.ItemStackArgumentType;
+import net.minecraft.item.Item;
+import net.minecraft.item.Items;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * /ghastfind 命令和客户端货舱查找请求的处理
+ * 通过货舱索引查找玩家的物品在哪些恶魂上，不加载区块
+ * 
+ * 用法：
+ * /ghastfind <物品>  列出自己的恶魂中有这种物品的恶魂和数量
+ */
+public class GhastFindCommand {
+    // 命令和查找界面最多显示的结果数
+    public static final int MAX_RESULTS = 32;
+    
+    /**
+     * 注册命令
+     */
+    public static void register() {
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) ->
+            dispatcher.register(CommandManager.literal("ghastfind")
+                .then(CommandManager.argument("item", ItemStackArgumentType.itemStack(registryAccess))
+                    .executes(context -> find(context.getSource(),
+                        ItemStackArgumentType.getItemStackArgument(context, "item").getItem())))));
+    }
+    
+    /**
+     * 列出玩家的恶魂中有这种物品的恶魂
+     */
+    private static int find(ServerCommandSource source, Item item) {
+        ServerPlayerEntity player = source.getPlayer();
+        if (player == null) {
+            source.sendError(Text.translatable("command.chest-on-ghast.ghastfind.player_only"));
+            return 0;
+        }
+        
+        List<GhastCargoIndex.Hit> hits = GhastCargoIndex.findAll(source.getServer(), player.getUuid(), item, MAX_RESULTS);
+        int total = 0;
+        for (GhastCargoIndex.Hit hit : hits) {
+            BlockPos pos = hit.pos();
+            Text line = Text.translatable("command.chest-on-ghast.ghastfind.hit",
+                hit.world().getRegistryKey().getValue().toString(), pos.getX(), pos.getY(), pos.getZ(), hit.count(),
+                Text.translatable(hit.loaded() ? "command.chest-on-ghast.ghastfind.loaded" : "command.chest-on-ghast.ghastfind.unloaded"));
+            source.sendFeedback(() -> line, false);
+            total += hit.count();
+        }
+        
+        int ghasts = hits.size();
+        int count = total;
+        source.sendFeedback(() -> Text.translatable("command.chest-on-ghast.ghastfind.total",
+            Text.translatable(item.getTranslationKey()), ghasts, count), false);
+        return ghasts;
+    }
+    
+    /**
+     * 处理客户端查找界面的请求
+     * 
+     * @param player 查找的玩家
+     * @param payload 查找的物品
+     * @return 查找结果
+     */
+    public static CargoFindResultPayload handleRequest(ServerPlayerEntity player, CargoFindPayload payload) {
+        List<CargoFindResultPayload.Entry> entries = new ArrayList<>();
+        for (int rawId : payload.items()) {
+            // 未知的ID会返回默认值空气，空气不会出现在货舱索引中
+            Item item = Registries.ITEM.get(rawId);
+            if (item == Items.AIR) continue;
+            int remaining = MAX_RESULTS - entries.size();
+            if (remaining <= 0) break;
+            for (GhastCargoIndex.Hit hit : GhastCargoIndex.findAll(player.getEntityWorld().getServer(), player.getUuid(), item, remaining)) {
+                entries.add(new CargoFindResultPayload.Entry(
+                    rawId, hit.world().getRegistryKey().getValue(), hit.pos(), hit.count(), hit.loaded()));
+            }
+        }
+        return new CargoFindResultPayload(entries);
+    }
+}
@@ -0,0 +1,42 @@
+package me.noramibu.cargo;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.scoreboard.Scoreboard;
+import net.minecraft.scoreboard.Team;
+import net.minecraft.server.world.ServerWorld;
+
+/**
+ * 无碰撞团队
+ * 挂在快乐恶魂上的箱子矿车加入此团队，避免与恶魂和玩家发生碰撞
+ * 直接通过计分板API加入团队，不经过命令解析
+ */
+public class NoCollisionTeam {
+    // 团队名称
+    public static final String TEAM_NAME = "NoCollision";
+    
+    /**
+     * 将实体加入无碰撞团队
+     * @param world 实体所在的世界
+     * @param entity 要加入的实体
+     */
+    public static void join(ServerWorld world, Entity entity) {
+        Scoreboard scoreboard = world.getScoreboard();
+        scoreboard.addScoreHolderToTeam(entity.getNameForScoreboard(), getOrCreate(scoreboard));
+    }
+    
+    /**
+     * 获取无碰撞团队，不存在时创建
+     * 计分板按名称查找团队只是一次哈希表查询，不需要另外缓存；
+     * 团队也可能已被管理员用/team remove删除，每次查找可以及时重建
+     */
+    private static Team getOrCreate(Scoreboard scoreboard) {
+        Team team = scoreboard.getTeam(TEAM_NAME);
+        if (team == null) {
+            team = scoreboard.addTeam(TEAM_NAME);
+        }
+        if (team.getCollisionRule() != Team.CollisionRule.NEVER) {
+            team.setCollisionRule(Team.CollisionRule.NEVER);
+        }
+        return team;
+    }
+}
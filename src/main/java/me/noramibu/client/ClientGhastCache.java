@@ -0,0 +1,91 @@
+package me.noramibu.client;
+
+import me.noramibu.network.ResyncGhastPayload;
+import me.noramibu.network.SyncGhastDataPayload;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 客户端快乐恶魂状态缓存
+ * 按实体ID保存每只恶魂最近一次同步的状态，增量数据包在此基础上应用
+ * GUI可以直接从缓存打开，不必等待服务端往返
+ * 
+ * 缓存有容量上限，按收到数据包的先后顺序淘汰最久未更新的状态
+ * 服务端GhastSyncTracker对每个玩家使用相同的容量和顺序，因此两边淘汰的是同一只恶魂，
+ * 之后再次同步时服务端会重新发送所有字段
+ * 实体卸载、切换世界、断开连接时也会移除对应的状态，服务端在停止追踪、切换世界时同步移除
+ * 
+ * 两边的记录仍可能不一致，因此没有缓存的恶魂只接受包含所有字段的数据，
+ * 收到不完整的增量数据时丢弃它并请求服务端重新发送，不会用0补齐缺少的字段
+ */
+public class ClientGhastCache {
+    // 实体ID -> 缓存状态，顺序为最近一次收到数据包的先后
+    private static final LinkedHashMap<Integer, ClientGhastState> STATES = new LinkedHashMap<>();
+    
+    /**
+     * 应用服务端发送的增量数据包
+     * @param payload 增量数据包
+     * @return 更新后的状态；没有缓存且数据不完整时返回null，并已请求服务端重新发送
+     */
+    public static ClientGhastState apply(SyncGhastDataPayload payload) {
+        // 移到末尾，与服务端记录的发送顺序保持一致
+        ClientGhastState state = STATES.remove(payload.entityId());
+        if (state == null) {
+            if (!payload.isComplete()) {
+                ClientPlayNetworking.send(new ResyncGhastPayload(
+                    payload.entityId(), payload.has(SyncGhastDataPayload.OPEN_SCREEN)));
+                return null;
+            }
+            state = new ClientGhastState(payload.entityId());
+        }
+        STATES.put(payload.entityId(), state);
+        state.apply(payload);
+        
+        // 超出容量时淘汰最久未更新的状态
+        Iterator<Map.Entry<Integer, ClientGhastState>> iterator = STATES.entrySet().iterator();
+        while (STATES.size() > SyncGhastDataPayload.CACHE_CAPACITY && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+        return state;
+    }
+    
+    /**
+     * 获取缓存的状态
+     * 不改变淘汰顺序
+     * @param entityId 实体ID
+     * @return 缓存状态，没有缓存时返回null
+     */
+    public static ClientGhastState get(int entityId) {
+        return STATES.get(entityId);
+    }
+    
+    /**
+     * 获取所有缓存的状态
+     * @return 只读视图，按最近一次收到数据包的先后排序
+     */
+    public static Collection<ClientGhastState> values() {
+        return STATES.values();
+    }
+    
+    /**
+     * 移除一只恶魂的状态
+     * 实体卸载时调用，服务端停止追踪时同样会移除对应的发送记录
+     * @param entityId 实体ID
+     */
+    public static void remove(int entityId) {
+        STATES.remove(entityId);
+    }
+    
+    /**
+     * 清空缓存
+     * 断开连接或切换世界时调用，服务端也会同时清除对应的发送记录
+     */
+    public static void clear() {
+        STATES.clear();
+    }
+}
@@ -0,0 +1,100 @@
+package me.noramibu.client;
+
+import me.noramibu.network.SyncGhastDataPayload;
+import net.minecraft.text.Text;
+import net.minecraft.util.Formatting;
+
+/**
+ * 客户端缓存的快乐恶魂状态
+ * 由服务端发送的增量数据包更新，派生数值根据等级从ClientLevelCurve计算
+ */
+public class ClientGhastState {
+    private final int entityId;
+    private int level = 1;
+    private int experience;
+    private float hunger;
+    private float currentHealth;
+    
+    // 缓存的显示文本，只在对应数值变化时重新生成，避免每帧格式化字符串
+    private String levelText;
+    private int levelTextLevel;
+    private String hungerText;
+    private int hungerTextValue;
+    private float hungerTextMax;
+    private Text nameplateText;
+    private String nameplateLevelText;
+    private String nameplateHungerText;
+    
+    public ClientGhastState(int entityId) {
+        this.entityId = entityId;
+    }
+    
+    /**
+     * 应用增量数据包
+     * 只覆盖掩码中标记的字段
+     * @param payload 增量数据包
+     */
+    public void apply(SyncGhastDataPayload payload) {
+        if (payload.has(SyncGhastDataPayload.LEVEL)) this.level = payload.level();
+        if (payload.has(SyncGhastDataPayload.EXPERIENCE)) this.experience = payload.experience();
+        if (payload.has(SyncGhastDataPayload.HUNGER)) this.hunger = payload.hunger();
+        if (payload.has(SyncGhastDataPayload.HEALTH)) this.currentHealth = payload.currentHealth();
+    }
+    
+    // Getter方法
+    public int getEntityId() { return entityId; }
+    public int getLevel() { return level; }
+    public int getExperience() { return experience; }
+    public float getHunger() { return hunger; }
+    public float getCurrentHealth() { return currentHealth; }
+    
+    // 派生数值，由等级决定
+    public float getMaxHealth() { return ClientLevelCurve.getMaxHealth(level); }
+    public float getMaxHunger() { return ClientLevelCurve.getMaxHunger(level); }
+    public int getExpToNext() { return ClientLevelCurve.getExpToNextLevel(level); }
+    
+    /**
+     * 获取等级文本，例如"Lv.3"
+     * @return 缓存的文本
+     */
+    public String getLevelText() {
+        if (levelText == null || levelTextLevel != level) {
+            levelText = "Lv." + level;
+            levelTextLevel = level;
+        }
+        return levelText;
+    }
+    
+    /**
+     * 获取饱食度文本，例如"12.5 / 20.0"
+     * 饱食度按0.1精度同步，量化值不变时文本不变
+     * @return 缓存的文本
+     */
+    public String getHungerText() {
+        int value = SyncGhastDataPayload.quantize(hunger);
+        float max = getMaxHunger();
+        if (hungerText == null || hungerTextValue != value || hungerTextMax != max) {
+            hungerText = String.format("%.1f / %.1f", hunger, max);
+            hungerTextValue = value;
+            hungerTextMax = max;
+        }
+        return hungerText;
+    }
+    
+    /**
+     * 获取头顶信息文本，例如"Lv.3  12.5 / 20.0"
+     * 由等级文本和饱食度文本组成，两者都没有重新生成时直接返回缓存
+     * @return 缓存的文本
+     */
+    public Text getNameplateText() {
+        String level = getLevelText();
+        String hunger = getHungerText();
+        if (nameplateText == null || nameplateLevelText != level || nameplateHungerText != hunger) {
+            nameplateText = Text.literal(level).formatted(Formatting.GOLD)
+                .append(Text.literal("  " + hunger).formatted(Formatting.WHITE));
+            nameplateLevelText = level;
+            nameplateHungerText = hunger;
+        }
+        return nameplateText;
+    }
+}
@@ -0,0 +1,71 @@
+package me.noramibu.client;
+
+import me.noramibu.level.LevelConfig;
+
+import java.util.List;
+
+/**
+ * 客户端使用的等级曲线
+ * 保存服务端同步过来的等级曲线，GUI和状态条的派生数值都从这里读取
+ * 
+ * 单人游戏和局域网主机上客户端与内置服务端在同一个JVM中，
+ * 因此客户端不能修改服务端使用的LevelConfig，只能写入这里
+ * 只在客户端主线程中调用
+ */
+public class ClientLevelCurve {
+    // 当前曲线的展开数组，索引0对应等级1，整体替换
+    private static int maxLevel;
+    private static float[] maxHealth;
+    private static float[] maxHunger;
+    private static int[] expToNextLevel;
+    
+    static {
+        reset();
+    }
+    
+    /**
+     * 替换为服务端同步的等级曲线
+     * @param levels 等级数据，索引0对应等级1
+     */
+    public static void set(List<LevelConfig.LevelData> levels) {
+        if (levels.isEmpty()) return;
+        
+        int size = levels.size();
+        float[] health = new float[size];
+        float[] hunger = new float[size];
+        int[] exp = new int[size];
+        for (int i = 0; i < size; i++) {
+            LevelConfig.LevelData data = levels.get(i);
+            health[i] = data.getMaxHealth();
+            hunger[i] = data.getMaxHunger();
+            // 满级不需要经验值
+            exp[i] = i == size - 1 ? 0 : data.getExpToNextLevel();
+        }
+        maxLevel = size;
+        maxHealth = health;
+        maxHunger = hunger;
+        expToNextLevel = exp;
+    }
+    
+    /**
+     * 恢复默认等级曲线
+     * 断开连接时调用
+     */
+    public static void reset() {
+        set(LevelConfig.getDefaultLevels());
+    }
+    
+    /**
+     * 将等级限制在有效范围内并转换为数组下标
+     */
+    private static int index(int level) {
+        if (level < 1) return 0;
+        if (level > maxLevel) return maxLevel - 1;
+        return level - 1;
+    }
+    
+    public static int getMaxLevel() { return maxLevel; }
+    public static float getMaxHealth(int level) { return maxHealth[index(level)]; }
+    public static float getMaxHunger(int level) { return maxHunger[index(level)]; }
+    public static int getExpToNextLevel(int level) { return expToNextLevel[index(level)]; }
+}
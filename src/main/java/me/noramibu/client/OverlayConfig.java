@@ -0,0 +1,66 @@
+package me.noramibu.client;
+
+import me.noramibu.Chestonghast;
+import me.noramibu.sync.GhastNearbyBroadcast;
+import net.fabricmc.loader.api.FabricLoader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * 附近恶魂信息显示的客户端配置
+ * 保存在 config/chest-on-ghast-client.properties，文件不存在时写入默认值
+ * 
+ * overlay.enabled   是否显示（默认true）
+ * overlay.distance  显示距离（方块，默认24，不超过服务端的广播范围32）
+ */
+public class OverlayConfig {
+    private static final String FILE_NAME = "chest-on-ghast-client.properties";
+    
+    private static boolean enabled = true;
+    private static double distance = 24.0;
+    
+    /**
+     * 读取配置
+     * 客户端初始化时调用一次
+     */
+    public static void load() {
+        Path file = FabricLoader.getInstance().getConfigDir().resolve(FILE_NAME);
+        Properties properties = new Properties();
+        
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                Chestonghast.LOGGER.error("无法读取配置文件 {}", file, e);
+            }
+        }
+        
+        enabled = Boolean.parseBoolean(properties.getProperty("overlay.enabled", "true"));
+        try {
+            distance = Double.parseDouble(properties.getProperty("overlay.distance", "24"));
+        } catch (NumberFormatException e) {
+            Chestonghast.LOGGER.warn("配置项overlay.distance无效，已使用默认值");
+            distance = 24.0;
+        }
+        distance = Math.max(0, Math.min(distance, GhastNearbyBroadcast.RANGE));
+        
+        if (!Files.exists(file)) {
+            properties.setProperty("overlay.enabled", String.valueOf(enabled));
+            properties.setProperty("overlay.distance", String.valueOf(distance));
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                properties.store(writer, "Chest on Ghast client settings");
+            } catch (IOException e) {
+                Chestonghast.LOGGER.error("无法写入配置文件 {}", file, e);
+            }
+        }
+    }
+    
+    public static boolean isEnabled() { return enabled; }
+    public static double getDistance() { return distance; }
+}
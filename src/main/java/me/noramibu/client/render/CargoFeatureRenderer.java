@@ -0,0 +1,61 @@
+package me.noramibu.client.render;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.ChestBlock;
+import net.minecraft.client.render.OverlayTexture;
+import net.minecraft.client.render.command.OrderedRenderCommandQueue;
+import net.minecraft.client.render.entity.feature.FeatureRenderer;
+import net.minecraft.client.render.entity.feature.FeatureRendererContext;
+import net.minecraft.client.render.entity.model.HappyGhastEntityModel;
+import net.minecraft.client.render.entity.state.HappyGhastEntityRenderState;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.util.math.Direction;
+
+/**
+ * 快乐恶魂货舱渲染层
+ * 无实体货舱模式下，在恶魂挽具两侧和后方绘制箱子，每个货舱模块一个
+ * 位置按快乐恶魂模型大致对齐
+ */
+public class CargoFeatureRenderer extends FeatureRenderer<HappyGhastEntityRenderState, HappyGhastEntityModel> {
+    // 箱子方块状态，朝向外侧
+    private static final BlockState[] CHESTS = {
+        Blocks.CHEST.getDefaultState().with(ChestBlock.FACING, Direction.EAST),
+        Blocks.CHEST.getDefaultState().with(ChestBlock.FACING, Direction.WEST),
+        Blocks.CHEST.getDefaultState().with(ChestBlock.FACING, Direction.SOUTH)
+    };
+    
+    // 每个模块在模型空间中的位置（x, y, z），模型空间y轴向下
+    private static final float[][] OFFSETS = {
+        {0.75f, -0.25f, 0.0f},
+        {-0.75f, -0.25f, 0.0f},
+        {0.0f, -0.25f, 0.75f}
+    };
+    
+    // 箱子相对恶魂身体的缩放
+    private static final float SCALE = 0.5f;
+    
+    public CargoFeatureRenderer(FeatureRendererContext<HappyGhastEntityRenderState, HappyGhastEntityModel> context) {
+        super(context);
+    }
+    
+    @Override
+    public void render(MatrixStack matrices, OrderedRenderCommandQueue queue, int light,
+                       HappyGhastEntityRenderState state, float limbAngle, float limbDistance) {
+        int modules = ((CargoRenderState) state).getCargoModules();
+        if (modules <= 0 || state.invisible) {
+            return;
+        }
+        
+        for (int i = 0; i < Math.min(modules, CHESTS.length); i++) {
+            float[] offset = OFFSETS[i];
+            matrices.push();
+            matrices.translate(offset[0], offset[1], offset[2]);
+            // 模型空间是上下翻转的，方块需要翻回来并以中心对齐
+            matrices.scale(-SCALE, -SCALE, SCALE);
+            matrices.translate(-0.5f, -0.5f, -0.5f);
+            queue.submitBlock(matrices, CHESTS[i], light, OverlayTexture.DEFAULT_UV, 0);
+            matrices.pop();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package me.noramibu.client.render;
+
+/**
+ * 快乐恶魂渲染状态的货舱扩展
+ * 由Mixin添加到HappyGhastEntityRenderState，渲染前从实体复制货舱模块数量
+ * 
+ * 注意：此接口必须放在非mixin包中，以便可以被普通代码引用
+ */
+public interface CargoRenderState {
+    int getCargoModules();
+    
+    void setCargoModules(int modules);
+}
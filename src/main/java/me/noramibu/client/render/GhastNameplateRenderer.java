@@ -0,0 +1,100 @@
+package me.noramibu.client.render;
+
+import me.noramibu.client.ClientGhastCache;
+import me.noramibu.client.ClientGhastState;
+import me.noramibu.client.OverlayConfig;
+import me.noramibu.gui.GhastBars;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.render.RenderLayer;
+import net.minecraft.client.render.VertexConsumer;
+import net.minecraft.client.render.command.OrderedRenderCommandQueue;
+import net.minecraft.client.render.entity.state.EntityRenderState;
+import net.minecraft.client.render.state.CameraRenderState;
+import net.minecraft.client.util.math.MatrixStack;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.util.math.Vec3d;
+import org.joml.Matrix4f;
+
+/**
+ * 快乐恶魂头顶信息
+ * 在恶魂头顶绘制等级、饱食度文字和饱食度条，始终面向摄像机
+ * 
+ * 数据来自ClientGhastCache，由服务端每秒一次的批量广播更新，渲染时不发送任何请求
+ * 作为实体渲染的一部分提交，视锥剔除由原版实体渲染完成，这里只按配置的距离剔除
+ * 所有恶魂的状态条使用同一个渲染层提交，由渲染命令队列合并成一次绘制
+ */
+public class GhastNameplateRenderer {
+    // 状态条尺寸（文字像素单位）
+    private static final float BAR_HALF_WIDTH = 20.0f;
+    private static final float BAR_TOP = 10.0f;
+    private static final float BAR_HEIGHT = 2.0f;
+    
+    // 文字像素到方块的缩放，与原版名字标签相同
+    private static final float SCALE = 0.025f;
+    
+    // 头顶信息距离恶魂顶部的高度，有名字标签时再抬高一行
+    private static final double OFFSET = 0.5;
+    private static final double NAME_TAG_OFFSET = 0.3;
+    
+    /**
+     * 更新渲染状态时调用
+     * 只为距离内、缓存中有数据的恶魂记录状态
+     */
+    public static void updateRenderState(HappyGhastEntity entity, EntityRenderState state) {
+        ClientGhastState nameplate = null;
+        if (OverlayConfig.isEnabled() && MinecraftClient.isHudEnabled() && !state.invisible) {
+            double distance = OverlayConfig.getDistance();
+            if (state.squaredDistanceToCamera <= distance * distance) {
+                nameplate = ClientGhastCache.get(entity.getId());
+            }
+        }
+        ((GhastNameplateState) state).setNameplate(nameplate);
+    }
+    
+    /**
+     * 提交头顶信息
+     * 矩阵已经平移到恶魂位置
+     */
+    public static void render(EntityRenderState state, MatrixStack matrices, OrderedRenderCommandQueue queue,
+                              CameraRenderState cameraState) {
+        ClientGhastState nameplate = ((GhastNameplateState) state).getNameplate();
+        if (nameplate == null) {
+            return;
+        }
+        
+        double y = state.height + OFFSET + (state.displayName != null ? NAME_TAG_OFFSET : 0);
+        
+        // 文字，文本在数值变化时才会重新生成
+        queue.submitLabel(matrices, new Vec3d(0, y, 0), 0, nameplate.getNameplateText(), true,
+            state.light, state.squaredDistanceToCamera, cameraState);
+        
+        // 饱食度条，与文字使用相同的朝向和缩放，画在文字下方
+        float ratio = Math.max(0.0f, Math.min(1.0f, nameplate.getHunger() / nameplate.getMaxHunger()));
+        int light = state.light;
+        matrices.push();
+        matrices.translate(0, y, 0);
+        matrices.multiply(cameraState.orientation);
+        matrices.scale(SCALE, -SCALE, SCALE);
+        queue.submitCustom(matrices, RenderLayer.getTextBackground(), (entry, vertices) -> {
+            Matrix4f matrix = entry.getPositionMatrix();
+            float left = -BAR_HALF_WIDTH;
+            float right = BAR_HALF_WIDTH;
+            float filled = left + (right - left) * ratio;
+            quad(vertices, matrix, left, right, GhastBars.BACKGROUND_COLOR, light, 0.0f);
+            quad(vertices, matrix, left, filled, GhastBars.HUNGER_COLOR, light, -0.01f);
+        });
+        matrices.pop();
+    }
+    
+    /**
+     * 写入一个状态条矩形
+     */
+    private static void quad(VertexConsumer vertices, Matrix4f matrix, float left, float right, int color, int light, float z) {
+        float top = BAR_TOP;
+        float bottom = BAR_TOP + BAR_HEIGHT;
+        vertices.vertex(matrix, left, top, z).color(color).light(light);
+        vertices.vertex(matrix, left, bottom, z).color(color).light(light);
+        vertices.vertex(matrix, right, bottom, z).color(color).light(light);
+        vertices.vertex(matrix, right, top, z).color(color).light(light);
+    }
+}
@@ -0,0 +1,18 @@
+package me.noramibu.client.render;
+
+import me.noramibu.client.ClientGhastState;
+
+/**
+ * 快乐恶魂渲染状态的头顶信息扩展
+ * 由Mixin添加到HappyGhastEntityRenderState，渲染前从客户端缓存复制恶魂状态
+ * 
+ * 注意：此接口必须放在非mixin包中，以便可以被普通代码引用
+ */
+public interface GhastNameplateState {
+    /**
+     * @return 需要显示头顶信息的恶魂状态，不显示时为null
+     */
+    ClientGhastState getNameplate();
+    
+    void setNameplate(ClientGhastState state);
+}
@@ -0,0 +1,27 @@
+package me.noramibu.data;
+
+import java.util.UUID;
+
+/**
+ * 快乐恶魂数据的紧凑存储
+ * 由实体Mixin直接以字段实现，HappyGhastData作为视图读写这些字段
+ * 
+ * 字段含义：
+ * - progress：高8位为等级，低24位为当前等级的经验值
+ * - hunger：锚点时刻的饱食度，按0.1精度量化
+ * - hungerTick：饱食度锚点对应的世界时间加1（无符号），HappyGhastData.NOT_STARTED（0）表示尚未开始消耗
+ * - owner：主人的UUID，没有主人时为null
+ */
+public interface GhastDataStorage {
+    int getPackedProgress();
+    void setPackedProgress(int progress);
+    
+    char getPackedHunger();
+    void setPackedHunger(char hunger);
+    
+    int getPackedHungerTick();
+    void setPackedHungerTick(int tick);
+    
+    UUID getGhastOwner();
+    void setGhastOwner(UUID owner);
+}
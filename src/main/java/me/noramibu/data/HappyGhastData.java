@@ -1,62 +1,156 @@
 package me.noramibu.data;
 
+import me.noramibu.Chestonghast;
 import me.noramibu.level.LevelConfig;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.Uuids;
+
+import java.util.UUID;
 
 /**
- * 快乐恶魂数据类
- * 用于存储和管理快乐恶魂的等级、经验值、饱食度等数据
- * 提供数据的序列化和反序列化功能
+ * 快乐恶魂数据视图
+ * 用于读写快乐恶魂的等级、经验值、饱食度等数据，提供数据的序列化和反序列化功能
+ * 
+ * 数据本身以紧凑形式存放在GhastDataStorage中（实体上就是Mixin的几个基本类型字段），
+ * 这个类只持有存储的引用，每只恶魂一个视图，读写都不分配对象
  */
-public class HappyGhastData {
-    // 当前等级（1-6）
-    private int level;
+public final class HappyGhastData {
+    // 实体NBT中存放本模组数据的键
+    public static final String NBT_KEY = "ChestOnGhast";
+    
+    // 数据格式版本，修改存储格式时递增
+    private static final byte FORMAT_VERSION = 3;
+    private static final String KEY_VERSION = "V";
+    private static final String KEY_DATA = "D";
+    private static final String KEY_OWNER = "O";
+    
+    // 紧凑存储能表示的范围，等级曲线加载时据此校验
+    public static final int MAX_LEVEL = 0xFF;
+    public static final int MAX_EXPERIENCE = 0xFFFFFF;
+    public static final float MAX_HUNGER = Character.MAX_VALUE / 10.0f;
     
-    // 当前经验值
-    private int experience;
+    // 饱食度的量化倍数（精度0.1）
+    private static final float HUNGER_QUANTUM = 10.0f;
     
-    // 当前饱食度
-    private float hunger;
+    // hungerTick存储值的特殊值：尚未开始消耗
+    // 存储的是锚点tick + 1，因此任何有效的tick都不会被读成尚未开始
+    public static final int NOT_STARTED = 0;
     
-    // 记录上次饱食度降低的时间（用于计算饱食度消耗）
-    private long lastHungerDecayTime;
+    // 能存储的最大锚点tick：存储值按无符号int解释，tick + 1不能超过0xFFFFFFFF
+    // 按每秒20tick约为6.8年的世界时间；超过后锚点固定为这个值，饱食度的计算不再准确
+    public static final long MAX_HUNGER_TICK = 0xFFFFFFFEL;
+    
+    // 数据所在的存储
+    private final GhastDataStorage storage;
     
     /**
-     * 默认构造函数
-     * 初始化为等级1的新生快乐恶魂
+     * 创建存储的视图
+     * @param storage 紧凑存储
      */
-    public HappyGhastData() {
-        this.level = 1;
-        this.experience = 0;
-        LevelConfig.LevelData levelData = LevelConfig.getLevelData(1);
-        this.hunger = levelData.getMaxHunger();
-        this.lastHungerDecayTime = System.currentTimeMillis();
+    public HappyGhastData(GhastDataStorage storage) {
+        this.storage = storage;
+    }
+    
+    /**
+     * 创建一个不依附实体的数据，初始化为等级1的新生快乐恶魂
+     * 用于访问器不可用时的兜底和基准测试
+     * @return 新数据
+     */
+    public static HappyGhastData detached() {
+        HappyGhastData data = new HappyGhastData(new DetachedStorage());
+        data.reset();
+        return data;
     }
     
     /**
-     * 带参数的构造函数
-     * @param level 等级
-     * @param experience 经验值
-     * @param hunger 饱食度
+     * 重置为等级1的新生快乐恶魂
      */
-    public HappyGhastData(int level, int experience, float hunger) {
-        this.level = level;
-        this.experience = experience;
-        this.hunger = hunger;
-        this.lastHungerDecayTime = System.currentTimeMillis();
+    public void reset() {
+        storage.setPackedProgress(pack(1, 0));
+        storage.setPackedHunger(quantize(LevelConfig.getMaxHunger(1)));
+        storage.setPackedHungerTick(NOT_STARTED);
+        storage.setGhastOwner(null);
     }
     
     // Getter方法
-    public int getLevel() { return level; }
-    public int getExperience() { return experience; }
-    public float getHunger() { return hunger; }
+    public int getLevel() { return storage.getPackedProgress() >>> 24; }
+    public int getExperience() { return storage.getPackedProgress() & MAX_EXPERIENCE; }
+    public UUID getOwner() { return storage.getGhastOwner(); }
+    
+    /**
+     * 设置主人
+     * @param owner 主人的UUID，null表示没有主人
+     */
+    public void setOwner(UUID owner) {
+        storage.setGhastOwner(owner);
+    }
+    
+    /**
+     * 获取饱食度锚点对应的世界时间
+     * @return 锚点tick，尚未开始消耗时返回-1
+     */
+    private long getHungerTick() {
+        int stored = storage.getPackedHungerTick();
+        return stored == NOT_STARTED ? -1 : Integer.toUnsignedLong(stored) - 1;
+    }
+    
+    /**
+     * 获取锚点时刻的饱食度
+     */
+    private float getAnchorHunger() {
+        return storage.getPackedHunger() / HUNGER_QUANTUM;
+    }
+    
+    /**
+     * 设置饱食度锚点
+     * @param tick 锚点tick，负数表示尚未开始消耗，超过MAX_HUNGER_TICK时按MAX_HUNGER_TICK存储
+     */
+    private void setAnchor(float hunger, long tick) {
+        storage.setPackedHunger(quantize(hunger));
+        storage.setPackedHungerTick(packHungerTick(tick));
+    }
+    
+    /**
+     * 获取指定tick时的饱食度
+     * 根据锚点和当前等级的降低速率直接计算，不修改任何状态
+     * 无论经过多少tick都只需一次计算，区块重新加载时也不需要逐tick补算
+     * @param now 当前tick
+     * @return 饱食度
+     */
+    public float getHunger(long now) {
+        float hunger = getAnchorHunger();
+        long hungerTick = getHungerTick();
+        if (hungerTick < 0 || now <= hungerTick) return hunger;
+        return Math.max(0, hunger - getHungerDecayPerTick() * (now - hungerTick));
+    }
+    
+    /**
+     * 获取每tick的饱食度降低量
+     * @return 每tick降低量
+     */
+    public float getHungerDecayPerTick() {
+        return LevelConfig.getHungerDecayRate(getLevel()) / 20.0f;
+    }
+    
+    /**
+     * 获取饱食度降为0的tick
+     * 供调度器安排唤醒时间
+     * @return 饱食度耗尽的tick，如果不会耗尽则返回Long.MAX_VALUE
+     */
+    public long getStarveTick() {
+        float hunger = getAnchorHunger();
+        long hungerTick = getHungerTick();
+        float decayPerTick = getHungerDecayPerTick();
+        if (hungerTick < 0 || hunger <= 0 || decayPerTick <= 0) return Long.MAX_VALUE;
+        return hungerTick + (long) Math.ceil(hunger / decayPerTick);
+    }
     
     /**
      * 获取当前等级的最大血量
      * @return 最大血量
      */
     public float getMaxHealth() {
-        return LevelConfig.getLevelData(level).getMaxHealth();
+        return LevelConfig.getMaxHealth(getLevel());
     }
     
     /**
@@ -64,7 +158,7 @@ public class HappyGhastData {
      * @return 最大饱食度
      */
     public float getMaxHunger() {
-        return LevelConfig.getLevelData(level).getMaxHunger();
+        return LevelConfig.getMaxHunger(getLevel());
     }
     
     /**
@@ -72,7 +166,7 @@ public class HappyGhastData {
      * @return 升级所需经验值，如果已满级返回0
      */
     public int getExpToNextLevel() {
-        return LevelConfig.getLevelData(level).getExpToNextLevel();
+        return LevelConfig.getExpToNextLevel(getLevel());
     }
     
     /**
@@ -80,128 +174,173 @@ public class HappyGhastData {
      * @return 0.0-1.0之间的进度值
      */
     public float getExpProgress() {
-        if (level >= LevelConfig.MAX_LEVEL) return 1.0f;
+        if (getLevel() >= LevelConfig.getMaxLevel()) return 1.0f;
         int expNeeded = getExpToNextLevel();
         if (expNeeded == 0) return 1.0f;
-        return Math.min(1.0f, (float) experience / expNeeded);
+        return Math.min(1.0f, (float) getExperience() / expNeeded);
     }
     
     /**
      * 添加经验值
-     * 如果经验值足够会自动升级
+     * 如果经验值足够会自动升级，一次可以跨越多个等级
+     * 通过累计经验值前缀和二分查找目标等级，不需要逐级循环
      * @param amount 经验值数量
+     * @param now 当前tick
      * @return 如果升级了返回true
      */
-    public boolean addExperience(int amount) {
+    public boolean addExperience(int amount, long now) {
+        int level = getLevel();
+        
         // 如果已经满级，不再增加经验
-        if (level >= LevelConfig.MAX_LEVEL) {
+        if (level >= LevelConfig.getMaxLevel()) {
             return false;
         }
         
-        this.experience += amount;
-        
-        // 检查是否可以升级
-        boolean leveledUp = false;
-        while (LevelConfig.canLevelUp(level, experience)) {
-            levelUp();
-            leveledUp = true;
-        }
+        // 先结算饱食度，使升级前后的降低速率各自生效
+        updateHunger(now);
         
-        return leveledUp;
-    }
-    
-    /**
-     * 升级操作
-     * 提升等级并重置经验值，同时恢复饱食度到满值
-     */
-    private void levelUp() {
-        if (level >= LevelConfig.MAX_LEVEL) return;
+        // 计算从等级1开始的累计经验值，并找到对应的等级
+        long totalExp = LevelConfig.getTotalExpToReach(level) + getExperience() + amount;
+        int newLevel = LevelConfig.getLevelForTotalExp(totalExp);
         
-        // 扣除升级所需的经验值
-        experience -= LevelConfig.getLevelData(level).getExpToNextLevel();
+        // 扣除达到新等级所需的经验值，剩余部分作为当前等级的经验
+        int experience = (int) Math.min(MAX_EXPERIENCE, totalExp - LevelConfig.getTotalExpToReach(newLevel));
         
-        // 提升等级
-        level++;
+        if (newLevel <= level) {
+            storage.setPackedProgress(pack(level, experience));
+            return false;
+        }
         
-        // 升级后恢复饱食度到新等级的满值
-        LevelConfig.LevelData newLevelData = LevelConfig.getLevelData(level);
-        this.hunger = newLevelData.getMaxHunger();
+        // 提升等级，并恢复饱食度到新等级的满值
+        storage.setPackedProgress(pack(newLevel, experience));
+        storage.setPackedHunger(quantize(LevelConfig.getMaxHunger(newLevel)));
+        return true;
     }
     
     /**
      * 设置饱食度
+     * 以当前tick作为新的锚点
      * @param hunger 新的饱食度值
+     * @param now 当前tick
      */
-    public void setHunger(float hunger) {
-        this.hunger = Math.max(0, Math.min(hunger, getMaxHunger()));
+    public void setHunger(float hunger, long now) {
+        setAnchor(Math.max(0, Math.min(hunger, getMaxHunger())), now);
     }
     
     /**
      * 增加饱食度（喂食时调用）
      * @param amount 增加的量
+     * @param now 当前tick
      */
-    public void addHunger(float amount) {
-        setHunger(this.hunger + amount);
+    public void addHunger(float amount, long now) {
+        setHunger(getHunger(now) + amount, now);
     }
     
     /**
-     * 更新饱食度（每tick调用）
-     * 根据等级和时间降低饱食度
+     * 结算饱食度
+     * 把锚点移动到当前tick，尚未开始消耗的数据从此刻开始计算
+     * 只在状态需要改变时调用（喂食、升级、调度器唤醒），不需要每tick调用
+     * @param now 当前tick
      */
-    public void updateHunger() {
-        long currentTime = System.currentTimeMillis();
-        long timeDiff = currentTime - lastHungerDecayTime;
-        
-        // 每秒更新一次饱食度
-        if (timeDiff >= 1000) {
-            LevelConfig.LevelData levelData = LevelConfig.getLevelData(level);
-            float decayAmount = levelData.getHungerDecayRate();
-            
-            // 根据经过的秒数计算饱食度降低量
-            float totalDecay = decayAmount * (timeDiff / 1000.0f);
-            this.hunger = Math.max(0, this.hunger - totalDecay);
-            
-            this.lastHungerDecayTime = currentTime;
-        }
+    public void updateHunger(long now) {
+        setAnchor(getHunger(now), now);
     }
     
     /**
      * 将数据序列化到NBT
-     * 用于保存数据
+     * 用于保存数据，格式为：{V: 格式版本, D: [等级和经验值, 量化饱食度, 锚点tick + 1], O: 主人UUID（可选）}
+     * 直接写入紧凑存储中的数值，避免每只恶魂写入多个字符串键
      * @param nbt NBT标签
      */
     public void writeToNbt(NbtCompound nbt) {
-        nbt.putInt("Level", level);
-        nbt.putInt("Experience", experience);
-        nbt.putFloat("Hunger", hunger);
-        nbt.putLong("LastHungerDecayTime", lastHungerDecayTime);
+        nbt.putByte(KEY_VERSION, FORMAT_VERSION);
+        nbt.putIntArray(KEY_DATA, new int[] {
+            storage.getPackedProgress(),
+            storage.getPackedHunger(),
+            storage.getPackedHungerTick()
+        });
+        UUID owner = storage.getGhastOwner();
+        if (owner != null) {
+            nbt.putIntArray(KEY_OWNER, Uuids.toIntArray(owner));
+        }
     }
     
     /**
      * 从NBT反序列化数据
-     * 用于读取数据
+     * 用于读取数据，根据格式版本选择解析方式，以后修改格式时在这里添加迁移分支
+     * 格式无法识别时保留默认数据
      * @param nbt NBT标签
-     * @return 反序列化的数据对象
      */
-    public static HappyGhastData readFromNbt(NbtCompound nbt) {
-        HappyGhastData data = new HappyGhastData();
+    public void readFromNbt(NbtCompound nbt) {
+        reset();
         
         // 使用Optional处理NBT读取
-        data.level = nbt.getInt("Level").orElse(1);
-        data.experience = nbt.getInt("Experience").orElse(0);
-        data.hunger = nbt.getFloat("Hunger").orElse(LevelConfig.getLevelData(1).getMaxHunger());
-        data.lastHungerDecayTime = nbt.getLong("LastHungerDecayTime").orElse(System.currentTimeMillis());
+        byte version = nbt.getByte(KEY_VERSION).orElse((byte) 0);
+        int[] packed = nbt.getIntArray(KEY_DATA).orElse(new int[0]);
         
-        return data;
+        if (version == 3 && packed.length >= 3) {
+            storage.setPackedProgress(packed[0]);
+            storage.setPackedHunger((char) packed[1]);
+            storage.setPackedHungerTick(packed[2]);
+        } else if (version == 2 && packed.length >= 3) {
+            // 版本2：锚点tick直接按无符号int存储，-1表示尚未开始消耗
+            storage.setPackedProgress(packed[0]);
+            storage.setPackedHunger((char) packed[1]);
+            storage.setPackedHungerTick(packHungerTick(packed[2] == -1 ? -1 : Integer.toUnsignedLong(packed[2])));
+        } else if (version == 1 && packed.length >= 5) {
+            // 版本1：[等级, 经验值, 饱食度位, 锚点高32位, 锚点低32位]
+            storage.setPackedProgress(pack(packed[0], packed[1]));
+            long tick = ((long) packed[3] << 32) | (packed[4] & 0xFFFFFFFFL);
+            setAnchor(Float.intBitsToFloat(packed[2]), tick);
+        } else {
+            Chestonghast.LOGGER.warn("无法识别的快乐恶魂数据格式版本 {}，已使用默认数据", version);
+            return;
+        }
+        
+        storage.setGhastOwner(nbt.getIntArray(KEY_OWNER)
+            .filter(owner -> owner.length == 4)
+            .map(Uuids::toUuid)
+            .orElse(null));
+    }
+    
+    /**
+     * 把等级和经验值打包成一个int
+     */
+    private static int pack(int level, int experience) {
+        return Math.min(level, MAX_LEVEL) << 24 | Math.max(0, Math.min(experience, MAX_EXPERIENCE));
+    }
+    
+    /**
+     * 把锚点tick转换为存储值
+     * 存储tick + 1，0保留给NOT_STARTED
+     */
+    private static int packHungerTick(long tick) {
+        return tick < 0 ? NOT_STARTED : (int) (Math.min(tick, MAX_HUNGER_TICK) + 1);
+    }
+    
+    /**
+     * 把饱食度量化为char
+     */
+    private static char quantize(float hunger) {
+        return (char) Math.max(0, Math.min(Character.MAX_VALUE, Math.round(hunger * HUNGER_QUANTUM)));
     }
     
     /**
-     * 创建数据的副本
-     * @return 新的数据对象
+     * 不依附实体的存储
      */
-    public HappyGhastData copy() {
-        HappyGhastData copy = new HappyGhastData(this.level, this.experience, this.hunger);
-        copy.lastHungerDecayTime = this.lastHungerDecayTime;
-        return copy;
+    private static final class DetachedStorage implements GhastDataStorage {
+        private int progress;
+        private char hunger;
+        private int hungerTick;
+        private UUID owner;
+        
+        @Override public int getPackedProgress() { return progress; }
+        @Override public void setPackedProgress(int progress) { this.progress = progress; }
+        @Override public char getPackedHunger() { return hunger; }
+        @Override public void setPackedHunger(char hunger) { this.hunger = hunger; }
+        @Override public int getPackedHungerTick() { return hungerTick; }
+        @Override public void setPackedHungerTick(int tick) { this.hungerTick = tick; }
+        @Override public UUID getGhastOwner() { return owner; }
+        @Override public void setGhastOwner(UUID owner) { this.owner = owner; }
     }
 }
@@ -0,0 +1,83 @@
+package me.noramibu.fleet;
+
+import me.noramibu.NetworkHandler;
+import me.noramibu.data.HappyGhastData;
+import me.noramibu.hunger.HungerScheduler;
+import me.noramibu.index.GhastSpatialIndex;
+import me.noramibu.network.FleetStatusPayload;
+import me.noramibu.ownership.GhastOwnershipIndex;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 恶魂舰队查询
+ * 一次收集玩家拥有的和附近的所有快乐恶魂的状态，打包成一个批量网络包
+ */
+public class GhastFleet {
+    // 查询范围（方块）
+    public static final double RANGE = 64.0;
+    
+    // 单个网络包最多包含的恶魂数量
+    public static final int MAX_ENTRIES = 128;
+    
+    /**
+     * 查询玩家的恶魂舰队状态
+     * 玩家拥有的恶魂通过主人索引查找，只要在当前世界已加载就包含在内，不受距离限制
+     * 附近的恶魂通过空间索引只检查范围内区块段，结果按距离由近到远排序
+     * 
+     * @param player 查询的玩家
+     * @return 批量状态网络包
+     */
+    public static FleetStatusPayload query(ServerPlayerEntity player) {
+        ServerWorld world = player.getEntityWorld();
+        long now = HungerScheduler.now(world);
+        double rangeSq = RANGE * RANGE;
+        
+        UUID playerUuid = player.getUuid();
+        Set<HappyGhastEntity> found = new HashSet<>();
+        
+        // 玩家拥有的、已加载的恶魂
+        for (GhastOwnershipIndex.Entry entry : GhastOwnershipIndex.get(world).getOwned(playerUuid)) {
+            Entity entity = world.getEntity(entry.getGhast());
+            if (entity instanceof HappyGhastEntity ghast && !ghast.isRemoved()) {
+                found.add(ghast);
+            }
+        }
+        
+        // 附近的恶魂
+        GhastSpatialIndex.forEachInBox(world, player.getBoundingBox().expand(RANGE), ghast -> {
+            if (!ghast.isRemoved() && ghast.squaredDistanceTo(player) <= rangeSq) {
+                found.add(ghast);
+            }
+        });
+        
+        List<HappyGhastEntity> ghasts = new ArrayList<>(found);
+        ghasts.sort(Comparator.comparingDouble(ghast -> ghast.squaredDistanceTo(player)));
+        
+        int count = Math.min(ghasts.size(), MAX_ENTRIES);
+        List<FleetStatusPayload.Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            HappyGhastEntity ghast = ghasts.get(i);
+            HappyGhastData data = NetworkHandler.getOrCreateGhastData(ghast);
+            entries.add(new FleetStatusPayload.Entry(
+                ghast.getId(),
+                data.getLevel(),
+                data.getExperience(),
+                data.getHunger(now),
+                ghast.getHealth(),
+                ghast.getBlockPos(),
+                playerUuid.equals(data.getOwner())
+            ));
+        }
+        return new FleetStatusPayload(entries);
+    }
+}
@@ -0,0 +1,160 @@
+package me.noramibu.gui;
+
+import me.noramibu.network.CargoFindPayload;
+import me.noramibu.network.CargoFindResultPayload;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.client.gui.widget.ButtonWidget;
+import net.minecraft.client.gui.widget.TextFieldWidget;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.registry.Registries;
+import net.minecraft.text.Text;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 货舱查找界面
+ * 输入物品名称或ID，服务端在货舱索引中查找玩家的哪些恶魂上有这些物品
+ * 名称匹配在客户端完成，只把匹配到的物品发送给服务端
+ */
+public class CargoFindScreen extends Screen {
+    // GUI尺寸
+    private static final int GUI_WIDTH = 300;
+    private static final int GUI_HEIGHT = 200;
+    
+    // 最多显示的结果行数和行高
+    private static final int MAX_ROWS = 8;
+    private static final int ROW_HEIGHT = 18;
+    
+    private TextFieldWidget searchField;
+    private String query = "";
+    
+    // 查找结果，收到时生成每行的物品和文本，渲染时不再格式化
+    private final List<ItemStack> rowIcons = new ArrayList<>();
+    private final List<String> rowTexts = new ArrayList<>();
+    private boolean searched;
+    
+    public CargoFindScreen() {
+        super(Text.translatable("gui.chest-on-ghast.cargo_find"));
+    }
+    
+    /**
+     * 用服务端返回的结果更新界面
+     * @param entries 查找结果
+     */
+    public void update(List<CargoFindResultPayload.Entry> entries) {
+        rowIcons.clear();
+        rowTexts.clear();
+        for (CargoFindResultPayload.Entry entry : entries) {
+            if (rowIcons.size() >= MAX_ROWS) break;
+            rowIcons.add(new ItemStack(Registries.ITEM.get(entry.item())));
+            rowTexts.add(String.format("x%d  %s [%d, %d, %d]%s", entry.count(), entry.dimension().getPath(),
+                entry.pos().getX(), entry.pos().getY(), entry.pos().getZ(), entry.loaded() ? "" : " *"));
+        }
+        searched = true;
+    }
+    
+    /**
+     * 初始化搜索框和查找按钮
+     */
+    @Override
+    protected void init() {
+        super.init();
+        
+        int guiX = (this.width - GUI_WIDTH) / 2;
+        int guiY = (this.height - GUI_HEIGHT) / 2;
+        
+        this.searchField = new TextFieldWidget(this.textRenderer, guiX + 10, guiY + 34, GUI_WIDTH - 90, 18,
+            Text.translatable("gui.chest-on-ghast.cargo_search"));
+        this.searchField.setPlaceholder(Text.translatable("gui.chest-on-ghast.cargo_search"));
+        this.searchField.setText(this.query);
+        this.searchField.setChangedListener(text -> this.query = text);
+        this.addDrawableChild(this.searchField);
+        this.setInitialFocus(this.searchField);
+        
+        this.addDrawableChild(ButtonWidget.builder(Text.translatable("gui.chest-on-ghast.cargo_find_button"), button -> search())
+            .dimensions(guiX + GUI_WIDTH - 74, guiY + 33, 64, 20).build());
+    }
+    
+    /**
+     * 把搜索词匹配为物品并发送查找请求
+     * 搜索词是完整的物品ID时只查找这种物品，否则查找名称包含搜索词的前几种物品
+     */
+    private void search() {
+        String text = this.query.trim().toLowerCase(Locale.ROOT);
+        if (text.isEmpty()) return;
+        
+        List<Item> items = new ArrayList<>();
+        Identifier id = Identifier.tryParse(text);
+        if (id != null && Registries.ITEM.containsId(id)) {
+            items.add(Registries.ITEM.get(id));
+        } else {
+            for (Item item : Registries.ITEM) {
+                if (item != Items.AIR && item.getName().getString().toLowerCase(Locale.ROOT).contains(text)) {
+                    items.add(item);
+                    if (items.size() >= CargoFindPayload.MAX_ITEMS) break;
+                }
+            }
+        }
+        
+        int[] rawIds = new int[items.size()];
+        for (int i = 0; i < rawIds.length; i++) {
+            rawIds[i] = Registries.ITEM.getRawId(items.get(i));
+        }
+        if (rawIds.length == 0) {
+            update(List.of());
+            return;
+        }
+        ClientPlayNetworking.send(new CargoFindPayload(rawIds));
+    }
+    
+    /**
+     * 渲染GUI
+     */
+    @Override
+    public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        this.renderBackground(context, mouseX, mouseY, delta);
+        
+        int guiX = (this.width - GUI_WIDTH) / 2;
+        int guiY = (this.height - GUI_HEIGHT) / 2;
+        
+        // 背景面板和边框
+        context.fill(guiX, guiY, guiX + GUI_WIDTH, guiY + GUI_HEIGHT, 0xD0101010);
+        context.fill(guiX, guiY, guiX + GUI_WIDTH, guiY + 2, 0xFF8B8B8B);
+        context.fill(guiX, guiY + GUI_HEIGHT - 2, guiX + GUI_WIDTH, guiY + GUI_HEIGHT, 0xFF8B8B8B);
+        context.fill(guiX, guiY, guiX + 2, guiY + GUI_HEIGHT, 0xFF8B8B8B);
+        context.fill(guiX + GUI_WIDTH - 2, guiY, guiX + GUI_WIDTH, guiY + GUI_HEIGHT, 0xFF8B8B8B);
+        context.fill(guiX + 10, guiY + 28, guiX + GUI_WIDTH - 10, guiY + 30, 0xFFFFD700);
+        
+        context.drawText(this.textRenderer, this.title, guiX + 10, guiY + 10, 0xFFD700, true);
+        
+        // 结果列表：物品图标、数量、维度和位置，*表示恶魂未加载（最后已知位置）
+        int rowY = guiY + 60;
+        for (int i = 0; i < rowIcons.size(); i++) {
+            context.drawItem(rowIcons.get(i), guiX + 10, rowY + i * ROW_HEIGHT);
+            context.drawText(this.textRenderer, rowTexts.get(i), guiX + 30, rowY + i * ROW_HEIGHT + 4, 0xFFFFFF, false);
+        }
+        if (searched && rowIcons.isEmpty()) {
+            Text empty = Text.translatable("gui.chest-on-ghast.cargo_find_empty");
+            context.drawText(this.textRenderer, empty,
+                guiX + (GUI_WIDTH - this.textRenderer.getWidth(empty)) / 2, guiY + 100, 0xAAAAAA, false);
+        }
+        
+        super.render(context, mouseX, mouseY, delta);
+    }
+    
+    /**
+     * 检查是否应该暂停游戏
+     * GUI打开时不暂停游戏
+     */
+    @Override
+    public boolean shouldPause() {
+        return false;
+    }
+}
@@ -0,0 +1,153 @@
+package me.noramibu.gui;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import me.noramibu.cargo.CargoInventory;
+import me.noramibu.cargo.CargoScreenHandler;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.ingame.HandledScreen;
+import net.minecraft.client.gui.widget.ButtonWidget;
+import net.minecraft.client.gui.widget.TextFieldWidget;
+import net.minecraft.client.input.KeyInput;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.screen.slot.Slot;
+import net.minecraft.text.Text;
+import org.lwjgl.glfw.GLFW;
+
+import java.util.Locale;
+
+/**
+ * 快乐恶魂货舱界面
+ * 所有箱子矿车的格子显示在一起，右侧有整理按钮和搜索框
+ * 搜索时不匹配的格子变暗，并显示匹配物品的总数
+ * 搜索结果只在搜索词或货舱内容变化时重新计算
+ */
+public class CargoScreen extends HandledScreen<CargoScreenHandler> {
+    // 颜色
+    private static final int PANEL_COLOR = 0xFFC6C6C6;
+    private static final int SLOT_COLOR = 0xFF8B8B8B;
+    private static final int DIM_COLOR = 0xC0000000;
+    
+    private TextFieldWidget searchField;
+    
+    // 搜索结果缓存
+    private String query = "";
+    private boolean[] matches;
+    private int matchedTotal;
+    private int matchedRevision = -1;
+    private String matchedQuery;
+    private Text matchedText;
+    
+    public CargoScreen(CargoScreenHandler handler, PlayerInventory inventory, Text title) {
+        super(handler, inventory, title);
+        this.backgroundHeight = 114 + handler.getRows() * 18;
+        this.playerInventoryTitleY = this.backgroundHeight - 94;
+        this.matches = new boolean[handler.getInventory().size()];
+    }
+    
+    /**
+     * 初始化整理按钮和搜索框
+     */
+    @Override
+    protected void init() {
+        super.init();
+        
+        int sideX = this.x + this.backgroundWidth + 4;
+        
+        // 整理：服务端合并并排序，只同步变化的格子
+        this.addDrawableChild(ButtonWidget.builder(Text.translatable("gui.chest-on-ghast.cargo_sort"), button -> {
+            if (this.client != null && this.client.interactionManager != null) {
+                this.client.interactionManager.clickButton(this.handler.syncId, CargoScreenHandler.BUTTON_SORT);
+            }
+        }).dimensions(sideX, this.y, 80, 20).build());
+        
+        // 搜索框
+        this.searchField = new TextFieldWidget(this.textRenderer, sideX, this.y + 24, 80, 16,
+            Text.translatable("gui.chest-on-ghast.cargo_search"));
+        this.searchField.setPlaceholder(Text.translatable("gui.chest-on-ghast.cargo_search"));
+        this.searchField.setText(this.query);
+        this.searchField.setChangedListener(text -> this.query = text.toLowerCase(Locale.ROOT));
+        this.addDrawableChild(this.searchField);
+    }
+    
+    /**
+     * 每tick刷新客户端的物品总数，点击时客户端预测会原地修改堆叠
+     */
+    @Override
+    protected void handledScreenTick() {
+        super.handledScreenTick();
+        this.handler.getInventory().refresh();
+    }
+    
+    /**
+     * 搜索框获得焦点时，按键输入到搜索框，不触发关闭界面等快捷键
+     */
+    @Override
+    public boolean keyPressed(KeyInput input) {
+        if (this.searchField != null && this.searchField.isFocused() && input.key() != GLFW.GLFW_KEY_ESCAPE) {
+            this.searchField.keyPressed(input);
+            return true;
+        }
+        return super.keyPressed(input);
+    }
+    
+    /**
+     * 渲染界面，搜索时在物品上方覆盖不匹配的格子
+     */
+    @Override
+    public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        super.render(context, mouseX, mouseY, delta);
+        
+        if (!this.query.isEmpty()) {
+            updateMatches();
+            int cargoSize = matches.length;
+            for (int i = 0; i < cargoSize; i++) {
+                if (!matches[i]) {
+                    Slot slot = this.handler.slots.get(i);
+                    context.fill(this.x + slot.x, this.y + slot.y, this.x + slot.x + 16, this.y + slot.y + 16, DIM_COLOR);
+                }
+            }
+            context.drawText(this.textRenderer, matchedText, this.x + this.backgroundWidth + 4, this.y + 44, 0xFFFFFF, true);
+        }
+        
+        this.drawMouseoverTooltip(context, mouseX, mouseY);
+    }
+    
+    /**
+     * 重新计算搜索结果
+     * 格子是否匹配按堆叠名称（包括自定义名称），总数从货舱的物品总数中累加
+     */
+    private void updateMatches() {
+        CargoInventory inventory = this.handler.getInventory();
+        if (this.query.equals(matchedQuery) && inventory.getRevision() == matchedRevision) {
+            return;
+        }
+        matchedQuery = this.query;
+        matchedRevision = inventory.getRevision();
+        
+        for (int i = 0; i < matches.length; i++) {
+            ItemStack stack = inventory.getStack(i);
+            matches[i] = !stack.isEmpty() && stack.getName().getString().toLowerCase(Locale.ROOT).contains(this.query);
+        }
+        
+        matchedTotal = 0;
+        for (Object2IntMap.Entry<Item> entry : inventory.getCounts().object2IntEntrySet()) {
+            if (entry.getKey().getName().getString().toLowerCase(Locale.ROOT).contains(this.query)) {
+                matchedTotal += entry.getIntValue();
+            }
+        }
+        matchedText = Text.translatable("gui.chest-on-ghast.cargo_matches", matchedTotal);
+    }
+    
+    /**
+     * 绘制背景面板和格子
+     */
+    @Override
+    protected void drawBackground(DrawContext context, float deltaTicks, int mouseX, int mouseY) {
+        context.fill(this.x, this.y, this.x + this.backgroundWidth, this.y + this.backgroundHeight, PANEL_COLOR);
+        for (Slot slot : this.handler.slots) {
+            context.fill(this.x + slot.x - 1, this.y + slot.y - 1, this.x + slot.x + 17, this.y + slot.y + 17, SLOT_COLOR);
+        }
+    }
+}
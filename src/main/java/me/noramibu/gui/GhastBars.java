@@ -0,0 +1,35 @@
+package me.noramibu.gui;
+
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.text.OrderedText;
+
+/**
+ * 快乐恶魂状态条的绘制
+ * 详情界面和舰队界面共用，保证两处的颜色一致；数值文本由调用方预先生成
+ */
+public class GhastBars {
+    // 状态条颜色
+    public static final int BACKGROUND_COLOR = 0xFF555555;
+    public static final int HEALTH_COLOR = 0xFFFF0000;
+    public static final int HUNGER_COLOR = 0xFFFF8C00;
+    public static final int EXP_COLOR = 0xFF00FF00;
+    
+    /**
+     * 绘制一个状态条，数值文本居中显示在条上
+     * 使用预先排版好的文本和宽度，数值不变时不需要每帧格式化和测量文本
+     * @param ratio 填充比例（0到1之间）
+     * @param color 前景颜色
+     * @param text 排版后的数值文本
+     * @param textWidth 文本宽度
+     */
+    public static void draw(DrawContext context, TextRenderer textRenderer, int x, int y, int width, int height,
+                            float ratio, int color, OrderedText text, int textWidth) {
+        context.fill(x, y, x + width, y + height, BACKGROUND_COLOR);
+        
+        int filled = (int)(width * Math.max(0.0f, Math.min(1.0f, ratio)));
+        context.fill(x, y, x + filled, y + height, color);
+        
+        context.drawText(textRenderer, text, x + (width - textWidth) / 2, y + (height - 8) / 2, 0xFFFFFF, true);
+    }
+}
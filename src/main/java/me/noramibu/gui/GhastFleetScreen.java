@@ -0,0 +1,274 @@
+package me.noramibu.gui;
+
+import me.noramibu.client.ClientLevelCurve;
+import me.noramibu.network.FleetQueryPayload;
+import me.noramibu.network.FleetStatusPayload;
+import me.noramibu.network.OpenGhastGuiPayload;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.client.gui.widget.ButtonWidget;
+import net.minecraft.text.OrderedText;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.MathHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 恶魂舰队界面
+ * 分页显示玩家拥有的和附近的所有快乐恶魂的等级、距离和状态条，数据来自一次批量查询
+ * 玩家拥有的恶魂等级显示为金色，其他为灰色
+ * 点击每行右侧的按钮打开该恶魂的详情界面
+ */
+public class GhastFleetScreen extends Screen {
+    // GUI尺寸
+    private static final int GUI_WIDTH = 300;
+    private static final int GUI_HEIGHT = 200;
+    
+    // 每页行数和行高
+    private static final int ROWS_PER_PAGE = 6;
+    private static final int ROW_HEIGHT = 24;
+    
+    // 状态条尺寸
+    private static final int BAR_WIDTH = 56;
+    private static final int BAR_HEIGHT = 10;
+    
+    // 舰队状态（按距离由近到远排序）
+    private List<FleetStatusPayload.Entry> entries;
+    
+    // 每行预先生成的文本，与entries一一对应，在init中生成
+    private List<Row> rows;
+    
+    // 当前页（从0开始）
+    private int page;
+    
+    /**
+     * 一行的显示文本
+     * 状态条文本在收到查询结果时生成一次，距离文本只在整数距离变化时重新生成，
+     * 渲染时不需要每帧格式化字符串
+     */
+    private static final class Row {
+        final FleetStatusPayload.Entry entry;
+        final String levelText;
+        final float healthRatio;
+        final OrderedText healthText;
+        final int healthWidth;
+        final float hungerRatio;
+        final OrderedText hungerText;
+        final int hungerWidth;
+        final float expRatio;
+        final OrderedText expText;
+        final int expWidth;
+        int distance = -1;
+        Text distanceText;
+        
+        Row(FleetStatusPayload.Entry entry, TextRenderer textRenderer) {
+            this.entry = entry;
+            int level = entry.level();
+            this.levelText = "Lv." + level;
+            
+            float maxHealth = ClientLevelCurve.getMaxHealth(level);
+            String health = String.format("%.1f / %.1f", entry.currentHealth(), maxHealth);
+            this.healthRatio = entry.currentHealth() / maxHealth;
+            this.healthText = GhastScreenText.reorder(health);
+            this.healthWidth = textRenderer.getWidth(health);
+            
+            float maxHunger = ClientLevelCurve.getMaxHunger(level);
+            String hunger = String.format("%.1f / %.1f", entry.hunger(), maxHunger);
+            this.hungerRatio = entry.hunger() / maxHunger;
+            this.hungerText = GhastScreenText.reorder(hunger);
+            this.hungerWidth = textRenderer.getWidth(hunger);
+            
+            // 满级时经验条显示满级文本
+            int expToNext = ClientLevelCurve.getExpToNextLevel(level);
+            String exp;
+            if (level < ClientLevelCurve.getMaxLevel()) {
+                exp = entry.experience() + " / " + expToNext;
+                this.expRatio = (float) entry.experience() / expToNext;
+            } else {
+                exp = Text.translatable("gui.chest-on-ghast.max_level").getString();
+                this.expRatio = 1.0f;
+            }
+            this.expText = GhastScreenText.reorder(exp);
+            this.expWidth = textRenderer.getWidth(exp);
+        }
+        
+        /**
+         * 获取距离文本，距离变化时重新生成
+         */
+        Text getDistanceText(int newDistance) {
+            if (newDistance != distance || distanceText == null) {
+                distance = newDistance;
+                distanceText = Text.translatable("gui.chest-on-ghast.distance", newDistance);
+            }
+            return distanceText;
+        }
+    }
+    
+    /**
+     * 构造函数
+     * @param entries 服务端返回的舰队状态
+     */
+    public GhastFleetScreen(List<FleetStatusPayload.Entry> entries) {
+        super(Text.translatable("gui.chest-on-ghast.fleet"));
+        this.entries = entries;
+    }
+    
+    /**
+     * 用新的查询结果更新界面，保留当前页
+     * @param entries 服务端返回的舰队状态
+     */
+    public void update(List<FleetStatusPayload.Entry> entries) {
+        this.entries = entries;
+        this.rows = null;
+        this.page = MathHelper.clamp(this.page, 0, getPageCount() - 1);
+        this.clearAndInit();
+    }
+    
+    /**
+     * 初始化GUI：翻页、刷新按钮和当前页每行的详情按钮
+     */
+    @Override
+    protected void init() {
+        super.init();
+        
+        // 文本宽度需要textRenderer，因此在这里而不是构造函数中生成
+        if (this.rows == null) {
+            List<Row> built = new ArrayList<>(entries.size());
+            for (FleetStatusPayload.Entry entry : entries) {
+                built.add(new Row(entry, this.textRenderer));
+            }
+            this.rows = built;
+        }
+        
+        int guiX = (this.width - GUI_WIDTH) / 2;
+        int guiY = (this.height - GUI_HEIGHT) / 2;
+        int bottomY = guiY + GUI_HEIGHT - 26;
+        
+        // 上一页
+        ButtonWidget previous = ButtonWidget.builder(Text.literal("<"), button -> {
+            this.page--;
+            this.clearAndInit();
+        }).dimensions(guiX + 10, bottomY, 20, 20).build();
+        previous.active = this.page > 0;
+        this.addDrawableChild(previous);
+        
+        // 下一页
+        ButtonWidget next = ButtonWidget.builder(Text.literal(">"), button -> {
+            this.page++;
+            this.clearAndInit();
+        }).dimensions(guiX + GUI_WIDTH - 30, bottomY, 20, 20).build();
+        next.active = this.page < getPageCount() - 1;
+        this.addDrawableChild(next);
+        
+        // 刷新：重新查询，结果到达后更新界面
+        this.addDrawableChild(ButtonWidget.builder(Text.translatable("gui.chest-on-ghast.fleet_refresh"),
+            button -> ClientPlayNetworking.send(new FleetQueryPayload()))
+            .dimensions(guiX + GUI_WIDTH / 2 - 30, bottomY, 60, 20).build());
+        
+        // 货舱查找：按物品查找自己的哪些恶魂上有这种物品
+        this.addDrawableChild(ButtonWidget.builder(Text.translatable("gui.chest-on-ghast.cargo_find"), button -> {
+                if (this.client != null) {
+                    this.client.setScreen(new CargoFindScreen());
+                }
+            })
+            .dimensions(guiX + GUI_WIDTH / 2 + 34, bottomY, 60, 20).build());
+        
+        // 当前页每行的详情按钮
+        int first = this.page * ROWS_PER_PAGE;
+        int last = Math.min(entries.size(), first + ROWS_PER_PAGE);
+        for (int i = first; i < last; i++) {
+            int entityId = entries.get(i).entityId();
+            int rowY = guiY + 36 + (i - first) * ROW_HEIGHT;
+            this.addDrawableChild(ButtonWidget.builder(Text.literal(">"), button -> {
+                    // 有缓存时立即打开，服务端的数据到达后刷新
+                    if (this.client != null) {
+                        HappyGhastScreen.openFromCache(this.client, entityId);
+                    }
+                    ClientPlayNetworking.send(new OpenGhastGuiPayload(entityId));
+                })
+                .dimensions(guiX + GUI_WIDTH - 30, rowY, 20, 20).build());
+        }
+    }
+    
+    /**
+     * 渲染GUI
+     */
+    @Override
+    public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        this.renderBackground(context, mouseX, mouseY, delta);
+        
+        int guiX = (this.width - GUI_WIDTH) / 2;
+        int guiY = (this.height - GUI_HEIGHT) / 2;
+        
+        // 背景面板和边框
+        context.fill(guiX, guiY, guiX + GUI_WIDTH, guiY + GUI_HEIGHT, 0xD0101010);
+        context.fill(guiX, guiY, guiX + GUI_WIDTH, guiY + 2, 0xFF8B8B8B);
+        context.fill(guiX, guiY + GUI_HEIGHT - 2, guiX + GUI_WIDTH, guiY + GUI_HEIGHT, 0xFF8B8B8B);
+        context.fill(guiX, guiY, guiX + 2, guiY + GUI_HEIGHT, 0xFF8B8B8B);
+        context.fill(guiX + GUI_WIDTH - 2, guiY, guiX + GUI_WIDTH, guiY + GUI_HEIGHT, 0xFF8B8B8B);
+        context.fill(guiX + 10, guiY + 28, guiX + GUI_WIDTH - 10, guiY + 30, 0xFFFFD700);
+        
+        // 标题和页码
+        Text title = Text.translatable("gui.chest-on-ghast.fleet_title", entries.size());
+        context.drawText(this.textRenderer, title, guiX + 10, guiY + 10, 0xFFD700, true);
+        String pageText = (this.page + 1) + " / " + getPageCount();
+        context.drawText(this.textRenderer, pageText,
+            guiX + GUI_WIDTH - 10 - this.textRenderer.getWidth(pageText), guiY + 10, 0xFFFFFF, false);
+        
+        if (entries.isEmpty()) {
+            Text empty = Text.translatable("gui.chest-on-ghast.fleet_empty");
+            context.drawText(this.textRenderer, empty,
+                guiX + (GUI_WIDTH - this.textRenderer.getWidth(empty)) / 2, guiY + 80, 0xAAAAAA, false);
+        }
+        
+        // 当前页的每一行
+        int first = this.page * ROWS_PER_PAGE;
+        int last = Math.min(entries.size(), first + ROWS_PER_PAGE);
+        for (int i = first; i < last; i++) {
+            renderRow(context, rows.get(i), guiX + 10, guiY + 36 + (i - first) * ROW_HEIGHT);
+        }
+        
+        super.render(context, mouseX, mouseY, delta);
+    }
+    
+    /**
+     * 渲染一行：等级、距离、血量条、饱食度条、经验条
+     */
+    private void renderRow(DrawContext context, Row row, int x, int y) {
+        FleetStatusPayload.Entry entry = row.entry;
+        context.drawText(this.textRenderer, row.levelText, x, y + 6, entry.owned() ? 0xFFD700 : 0xAAAAAA, true);
+        
+        if (this.client != null && this.client.player != null) {
+            int distance = (int) Math.sqrt(entry.pos().getSquaredDistance(this.client.player.getEntityPos()));
+            context.drawText(this.textRenderer, row.getDistanceText(distance), x + 34, y + 6, 0xAAAAAA, false);
+        }
+        
+        int barX = x + 74;
+        int barY = y + 5;
+        GhastBars.draw(context, this.textRenderer, barX, barY, BAR_WIDTH, BAR_HEIGHT,
+            row.healthRatio, GhastBars.HEALTH_COLOR, row.healthText, row.healthWidth);
+        GhastBars.draw(context, this.textRenderer, barX + BAR_WIDTH + 4, barY, BAR_WIDTH, BAR_HEIGHT,
+            row.hungerRatio, GhastBars.HUNGER_COLOR, row.hungerText, row.hungerWidth);
+        GhastBars.draw(context, this.textRenderer, barX + (BAR_WIDTH + 4) * 2, barY, BAR_WIDTH, BAR_HEIGHT,
+            row.expRatio, GhastBars.EXP_COLOR, row.expText, row.expWidth);
+    }
+    
+    /**
+     * 获取总页数，没有恶魂时也至少有一页
+     */
+    private int getPageCount() {
+        return Math.max(1, (entries.size() + ROWS_PER_PAGE - 1) / ROWS_PER_PAGE);
+    }
+    
+    /**
+     * 检查是否应该暂停游戏
+     * GUI打开时不暂停游戏
+     */
+    @Override
+    public boolean shouldPause() {
+        return false;
+    }
+}
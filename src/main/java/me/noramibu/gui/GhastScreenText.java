@@ -0,0 +1,127 @@
+package me.noramibu.gui;
+
+import me.noramibu.client.ClientGhastState;
+import me.noramibu.client.ClientLevelCurve;
+import me.noramibu.network.SyncGhastDataPayload;
+import net.minecraft.text.OrderedText;
+import net.minecraft.text.StringVisitable;
+import net.minecraft.text.Text;
+import net.minecraft.util.Language;
+
+import java.util.function.ToIntFunction;
+
+/**
+ * 快乐恶魂详情界面的数值文本缓存
+ * 保存格式化后的文本、排版后的OrderedText和文本宽度，只在对应数值变化时重新生成
+ * 数值没有变化时update不分配任何对象，界面每帧调用也不会产生垃圾
+ * 
+ * 血量和饱食度按同步精度（0.1）比较，与服务端发送的数值一致
+ */
+public class GhastScreenText {
+    // 文本宽度的计算方式，界面中为TextRenderer::getWidth
+    private final ToIntFunction<String> widthFunction;
+    
+    // 上一次生成文本时的数值，-1表示尚未生成
+    private int level = -1;
+    private int health = -1;
+    private float maxHealth = -1;
+    private int hunger = -1;
+    private float maxHunger = -1;
+    private int experience = -1;
+    private int expToNext = -1;
+    private boolean maxLevel;
+    
+    // 等级徽章和等级行
+    private OrderedText levelBadge;
+    private int levelBadgeWidth;
+    private OrderedText levelLine;
+    
+    // 状态条上的数值文本
+    private OrderedText healthText;
+    private int healthWidth;
+    private OrderedText hungerText;
+    private int hungerWidth;
+    private OrderedText expText;
+    private int expWidth;
+    
+    public GhastScreenText(ToIntFunction<String> widthFunction) {
+        this.widthFunction = widthFunction;
+    }
+    
+    /**
+     * 根据最新状态刷新文本
+     * @param state 客户端缓存的恶魂状态
+     * @return 有文本重新生成时返回true
+     */
+    public boolean update(ClientGhastState state) {
+        boolean changed = false;
+        
+        int newLevel = state.getLevel();
+        if (newLevel != level) {
+            level = newLevel;
+            String badge = "Lv." + newLevel;
+            levelBadge = reorder(badge);
+            levelBadgeWidth = widthFunction.applyAsInt(badge);
+            levelLine = Text.translatable("gui.chest-on-ghast.level", newLevel).asOrderedText();
+            changed = true;
+        }
+        
+        int newHealth = SyncGhastDataPayload.quantize(state.getCurrentHealth());
+        float newMaxHealth = state.getMaxHealth();
+        if (newHealth != health || newMaxHealth != maxHealth) {
+            health = newHealth;
+            maxHealth = newMaxHealth;
+            String text = String.format("%.1f / %.1f", state.getCurrentHealth(), newMaxHealth);
+            healthText = reorder(text);
+            healthWidth = widthFunction.applyAsInt(text);
+            changed = true;
+        }
+        
+        int newHunger = SyncGhastDataPayload.quantize(state.getHunger());
+        float newMaxHunger = state.getMaxHunger();
+        if (newHunger != hunger || newMaxHunger != maxHunger) {
+            hunger = newHunger;
+            maxHunger = newMaxHunger;
+            String text = String.format("%.1f / %.1f", state.getHunger(), newMaxHunger);
+            hungerText = reorder(text);
+            hungerWidth = widthFunction.applyAsInt(text);
+            changed = true;
+        }
+        
+        // 满级时经验条显示满级文本
+        int newExperience = state.getExperience();
+        int newExpToNext = state.getExpToNext();
+        boolean newMaxLevel = newLevel >= ClientLevelCurve.getMaxLevel();
+        if (newExperience != experience || newExpToNext != expToNext || newMaxLevel != maxLevel || expText == null) {
+            experience = newExperience;
+            expToNext = newExpToNext;
+            maxLevel = newMaxLevel;
+            String text = !newMaxLevel
+                ? newExperience + " / " + newExpToNext
+                : Text.translatable("gui.chest-on-ghast.max_level").getString();
+            expText = reorder(text);
+            expWidth = widthFunction.applyAsInt(text);
+            changed = true;
+        }
+        return changed;
+    }
+    
+    /**
+     * 与DrawContext绘制字符串时相同的排版方式
+     * 舰队界面缓存每行的文本时也使用
+     */
+    static OrderedText reorder(String text) {
+        return Language.getInstance().reorder(StringVisitable.plain(text));
+    }
+    
+    // Getter方法
+    public OrderedText getLevelBadge() { return levelBadge; }
+    public int getLevelBadgeWidth() { return levelBadgeWidth; }
+    public OrderedText getLevelLine() { return levelLine; }
+    public OrderedText getHealthText() { return healthText; }
+    public int getHealthWidth() { return healthWidth; }
+    public OrderedText getHungerText() { return hungerText; }
+    public int getHungerWidth() { return hungerWidth; }
+    public OrderedText getExpText() { return expText; }
+    public int getExpWidth() { return expWidth; }
+}
@@ -1,13 +1,19 @@
 package me.noramibu.gui;
 
-import me.noramibu.network.SyncGhastDataPayload;
+import me.noramibu.client.ClientGhastCache;
+import me.noramibu.client.ClientGhastState;
+import me.noramibu.client.ClientLevelCurve;
+import me.noramibu.network.CloseGhastGuiPayload;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.text.OrderedText;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.Util;
 
 /**
  * 快乐恶魂GUI屏幕
@@ -18,15 +24,16 @@ public class HappyGhastScreen extends Screen {
     // GUI背景纹理（使用Minecraft原版纹理）
     private static final Identifier STATS_ICONS = Identifier.ofVanilla("textures/gui/icons.png");
     
-    // 快乐恶魂数据
-    private final int entityId;
-    private final int level;
-    private final int experience;
-    private final float hunger;
-    private final float maxHealth;
-    private final float currentHealth;
-    private final float maxHunger;
-    private final int expToNext;
+    // 从缓存提前打开、尚未收到服务端打开指令的恶魂实体ID，没有时为-1
+    private static int pendingServerOpen = -1;
+    
+    // 从缓存提前打开的时间，超时后服务端的打开指令按新的请求处理
+    // 服务端可能不回复打开指令（请求被限流或拒绝），不能让旧的记录吞掉下一次打开
+    private static long pendingSince;
+    private static final long PENDING_TIMEOUT_MS = 1000;
+    
+    // 快乐恶魂数据（客户端缓存，收到增量数据包后自动更新）
+    private final ClientGhastState state;
     
     // 实体引用（用于渲染外观预览）
     private Entity ghastEntity;
@@ -35,20 +42,64 @@ public class HappyGhastScreen extends Screen {
     private static final int GUI_WIDTH = 256;
     private static final int GUI_HEIGHT = 200;
     
+    // 状态条尺寸
+    private static final int BAR_WIDTH = 80;
+    private static final int BAR_HEIGHT = 10;
+    
+    // 固定标签，init时排版一次
+    private OrderedText titleText;
+    private int titleWidth;
+    private OrderedText healthLabel;
+    private OrderedText hungerLabel;
+    private OrderedText experienceLabel;
+    
+    // 数值文本，数值变化时才重新生成
+    private GhastScreenText valueText;
+    
     /**
      * 构造函数
-     * @param payload 服务端发送的数据包
+     * @param state 客户端缓存的快乐恶魂状态
      */
-    public HappyGhastScreen(SyncGhastDataPayload payload) {
+    public HappyGhastScreen(ClientGhastState state) {
         super(Text.translatable("gui.chest-on-ghast.happy_ghast"));
-        this.entityId = payload.entityId();
-        this.level = payload.level();
-        this.experience = payload.experience();
-        this.hunger = payload.hunger();
-        this.maxHealth = payload.maxHealth();
-        this.currentHealth = payload.currentHealth();
-        this.maxHunger = payload.maxHunger();
-        this.expToNext = payload.expToNext();
+        this.state = state;
+    }
+    
+    /**
+     * 如果缓存中有这只恶魂的状态，立即打开GUI，不等待服务端往返
+     * 服务端随后发送的数据会更新缓存，已打开的GUI直接显示新数值
+     * 
+     * @param client 客户端
+     * @param entityId 实体ID
+     * @return 已从缓存打开返回true
+     */
+    public static boolean openFromCache(MinecraftClient client, int entityId) {
+        ClientGhastState state = ClientGhastCache.get(entityId);
+        if (state == null) return false;
+        if (!(client.currentScreen instanceof HappyGhastScreen screen && screen.getEntityId() == entityId)) {
+            client.setScreen(new HappyGhastScreen(state));
+        }
+        pendingServerOpen = entityId;
+        pendingSince = Util.getMeasuringTimeMs();
+        return true;
+    }
+    
+    /**
+     * 收到服务端的恶魂数据时调用
+     * 如果GUI已经从缓存提前打开过，不再重复打开（玩家可能已经在等待期间关闭了GUI）
+     * 这只恶魂的任何回复都会清除提前打开的记录，没有打开指令的回复说明服务端不会再打开
+     * 
+     * @param entityId 实体ID
+     * @param openScreen 服务端是否要求打开GUI
+     * @return 需要打开GUI返回true
+     */
+    public static boolean shouldOpenForServer(int entityId, boolean openScreen) {
+        if (pendingServerOpen != entityId) {
+            return openScreen;
+        }
+        boolean expired = Util.getMeasuringTimeMs() - pendingSince >= PENDING_TIMEOUT_MS;
+        pendingServerOpen = -1;
+        return openScreen && expired;
     }
     
     /**
@@ -60,8 +111,16 @@ public class HappyGhastScreen extends Screen {
         
         // 获取快乐恶魂实体引用
         if (this.client != null && this.client.world != null) {
-            this.ghastEntity = this.client.world.getEntityById(entityId);
+            this.ghastEntity = this.client.world.getEntityById(state.getEntityId());
         }
+        
+        // 排版固定标签，渲染时直接使用
+        this.titleText = this.title.asOrderedText();
+        this.titleWidth = this.textRenderer.getWidth(this.titleText);
+        this.healthLabel = Text.translatable("gui.chest-on-ghast.health").asOrderedText();
+        this.hungerLabel = Text.translatable("gui.chest-on-ghast.hunger").asOrderedText();
+        this.experienceLabel = Text.translatable("gui.chest-on-ghast.experience").asOrderedText();
+        this.valueText = new GhastScreenText(this.textRenderer::getWidth);
     }
     
     /**
@@ -76,6 +135,9 @@ public class HappyGhastScreen extends Screen {
         // 渲染半透明背景
         this.renderBackground(context, mouseX, mouseY, delta);
         
+        // 数值有变化时才重新生成文本
+        valueText.update(state);
+        
         // 计算GUI中心位置
         int guiX = (this.width - GUI_WIDTH) / 2;
         int guiY = (this.height - GUI_HEIGHT) / 2;
@@ -126,9 +188,7 @@ public class HappyGhastScreen extends Screen {
      * 渲染标题
      */
     private void renderTitle(DrawContext context, int x) {
-        Text title = Text.translatable("gui.chest-on-ghast.happy_ghast");
-        int titleWidth = this.textRenderer.getWidth(title);
-        context.drawText(this.textRenderer, title, 
+        context.drawText(this.textRenderer, titleText, 
             x + (GUI_WIDTH - titleWidth) / 2, 
             (this.height - GUI_HEIGHT) / 2 + 10, 
             0xFFD700, true);
@@ -165,19 +225,18 @@ public class HappyGhastScreen extends Screen {
         context.fill(x + mouthWidth/2 - 2, mouthY, x + mouthWidth/2, mouthY + 5, 0xFF000000);
         
         // 等级徽章（在右上角）
-        String levelBadge = "Lv." + level;
-        int badgeX = x + size/2 - this.textRenderer.getWidth(levelBadge) - 5;
+        int badgeWidth = valueText.getLevelBadgeWidth();
+        int badgeX = x + size/2 - badgeWidth - 5;
         int badgeY = y - size/2 + 5;
-        context.fill(badgeX - 2, badgeY - 2, badgeX + this.textRenderer.getWidth(levelBadge) + 2, badgeY + 10, 0xD0FFD700);
-        context.drawText(this.textRenderer, levelBadge, badgeX, badgeY, 0x000000, false);
+        context.fill(badgeX - 2, badgeY - 2, badgeX + badgeWidth + 2, badgeY + 10, 0xD0FFD700);
+        context.drawText(this.textRenderer, valueText.getLevelBadge(), badgeX, badgeY, 0x000000, false);
     }
     
     /**
      * 渲染等级信息
      */
     private void renderLevelInfo(DrawContext context, int x, int y) {
-        Text levelText = Text.translatable("gui.chest-on-ghast.level", level);
-        context.drawText(this.textRenderer, levelText, x, y, 0xFFFFFF, true);
+        context.drawText(this.textRenderer, valueText.getLevelLine(), x, y, 0xFFFFFF, true);
     }
     
     /**
@@ -185,23 +244,12 @@ public class HappyGhastScreen extends Screen {
      */
     private void renderHealthBar(DrawContext context, int x, int y) {
         // 标签
-        Text label = Text.translatable("gui.chest-on-ghast.health");
-        context.drawText(this.textRenderer, label, x, y - 10, 0xFFFFFF, false);
-        
-        // 血量条背景
-        int barWidth = 80;
-        int barHeight = 10;
-        context.fill(x, y, x + barWidth, y + barHeight, 0xFF555555);
+        context.drawText(this.textRenderer, healthLabel, x, y - 10, 0xFFFFFF, false);
         
-        // 血量条前景（红色）
-        float healthRatio = currentHealth / maxHealth;
-        int healthBarWidth = (int)(barWidth * healthRatio);
-        context.fill(x, y, x + healthBarWidth, y + barHeight, 0xFFFF0000);
-        
-        // 血量数值文本
-        String healthText = String.format("%.1f / %.1f", currentHealth, maxHealth);
-        int textX = x + (barWidth - this.textRenderer.getWidth(healthText)) / 2;
-        context.drawText(this.textRenderer, healthText, textX, y + 1, 0xFFFFFF, true);
+        // 血量条（红色）
+        GhastBars.draw(context, this.textRenderer, x, y, BAR_WIDTH, BAR_HEIGHT,
+            state.getCurrentHealth() / state.getMaxHealth(), GhastBars.HEALTH_COLOR,
+            valueText.getHealthText(), valueText.getHealthWidth());
     }
     
     /**
@@ -209,23 +257,12 @@ public class HappyGhastScreen extends Screen {
      */
     private void renderHungerBar(DrawContext context, int x, int y) {
         // 标签
-        Text label = Text.translatable("gui.chest-on-ghast.hunger");
-        context.drawText(this.textRenderer, label, x, y - 10, 0xFFFFFF, false);
-        
-        // 饱食度条背景
-        int barWidth = 80;
-        int barHeight = 10;
-        context.fill(x, y, x + barWidth, y + barHeight, 0xFF555555);
+        context.drawText(this.textRenderer, hungerLabel, x, y - 10, 0xFFFFFF, false);
         
-        // 饱食度条前景（橙色）
-        float hungerRatio = hunger / maxHunger;
-        int hungerBarWidth = (int)(barWidth * hungerRatio);
-        context.fill(x, y, x + hungerBarWidth, y + barHeight, 0xFFFF8C00);
-        
-        // 饱食度数值文本
-        String hungerText = String.format("%.1f / %.1f", hunger, maxHunger);
-        int textX = x + (barWidth - this.textRenderer.getWidth(hungerText)) / 2;
-        context.drawText(this.textRenderer, hungerText, textX, y + 1, 0xFFFFFF, true);
+        // 饱食度条（橙色）
+        GhastBars.draw(context, this.textRenderer, x, y, BAR_WIDTH, BAR_HEIGHT,
+            state.getHunger() / state.getMaxHunger(), GhastBars.HUNGER_COLOR,
+            valueText.getHungerText(), valueText.getHungerWidth());
     }
     
     /**
@@ -233,31 +270,29 @@ public class HappyGhastScreen extends Screen {
      */
     private void renderExpBar(DrawContext context, int x, int y) {
         // 标签
-        Text label = Text.translatable("gui.chest-on-ghast.experience");
-        context.drawText(this.textRenderer, label, x, y - 10, 0xFFFFFF, false);
-        
-        // 经验条背景
-        int barWidth = 80;
-        int barHeight = 10;
-        context.fill(x, y, x + barWidth, y + barHeight, 0xFF555555);
+        context.drawText(this.textRenderer, experienceLabel, x, y - 10, 0xFFFFFF, false);
         
-        // 经验条前景（绿色）
-        if (level < 6) {
-            float expRatio = (float)experience / expToNext;
-            int expBarWidth = (int)(barWidth * expRatio);
-            context.fill(x, y, x + expBarWidth, y + barHeight, 0xFF00FF00);
-            
-            // 经验数值文本
-            String expText = experience + " / " + expToNext;
-            int textX = x + (barWidth - this.textRenderer.getWidth(expText)) / 2;
-            context.drawText(this.textRenderer, expText, textX, y + 1, 0xFFFFFF, true);
-        } else {
-            // 满级显示
-            context.fill(x, y, x + barWidth, y + barHeight, 0xFF00FF00);
-            String maxText = Text.translatable("gui.chest-on-ghast.max_level").getString();
-            int textX = x + (barWidth - this.textRenderer.getWidth(maxText)) / 2;
-            context.drawText(this.textRenderer, maxText, textX, y + 1, 0xFFFFFF, true);
-        }
+        // 经验条（绿色），满级时显示满级文本
+        float ratio = state.getLevel() < ClientLevelCurve.getMaxLevel() ? (float)state.getExperience() / state.getExpToNext() : 1.0f;
+        GhastBars.draw(context, this.textRenderer, x, y, BAR_WIDTH, BAR_HEIGHT, ratio, GhastBars.EXP_COLOR,
+            valueText.getExpText(), valueText.getExpWidth());
+    }
+    
+    /**
+     * 获取GUI对应的实体ID
+     * @return 实体ID
+     */
+    public int getEntityId() {
+        return state.getEntityId();
+    }
+    
+    /**
+     * GUI关闭时通知服务端取消订阅
+     */
+    @Override
+    public void removed() {
+        super.removed();
+        ClientPlayNetworking.send(new CloseGhastGuiPayload(state.getEntityId()));
     }
     
     /**
@@ -0,0 +1,220 @@
+package me.noramibu.hunger;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import me.noramibu.NetworkHandler;
+import me.noramibu.cargo.CargoInventory;
+import me.noramibu.cargo.GhastCargo;
+import me.noramibu.cargo.GhastCargoIndex;
+import me.noramibu.data.HappyGhastData;
+import me.noramibu.metrics.GhastMetrics;
+import me.noramibu.metrics.GhastProfiler;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.gamerule.v1.GameRuleFactory;
+import net.fabricmc.fabric.api.gamerule.v1.GameRuleRegistry;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.GameRules;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 快乐恶魂自动进食
+ * 开启游戏规则chestOnGhastAutoFeed后，饱食度低于阈值的恶魂会从自己的货舱中吃掉最合适的食物
+ * 饱食度和经验值规则与玩家手动喂食相同
+ * 
+ * 所有已加载的恶魂排成一个轮询队列，每tick从队头开始检查，
+ * 总耗时超过预算就停下，剩下的留到下一tick继续，
+ * 因此即使大量恶魂同时饥饿也只会把进食分摊到多个tick，不会造成卡顿
+ */
+public class GhastAutoFeeder {
+    // 是否开启自动进食
+    public static final GameRules.Key<GameRules.BooleanRule> AUTO_FEED =
+        GameRuleRegistry.register("chestOnGhastAutoFeed", GameRules.Category.MOBS,
+            GameRuleFactory.createBooleanRule(false));
+    
+    // 自动进食的饱食度阈值，占饱食度上限的百分比
+    public static final GameRules.Key<GameRules.IntRule> AUTO_FEED_THRESHOLD =
+        GameRuleRegistry.register("chestOnGhastAutoFeedThreshold", GameRules.Category.MOBS,
+            GameRuleFactory.createIntRule(50, 0, 100));
+    
+    // 每tick的检查预算（纳秒）
+    private static final long BUDGET_NANOS = 200_000;
+    
+    // 两次进食之间的间隔，饱食度仍低于阈值时每秒吃一个
+    private static final int FEED_INTERVAL = 20;
+    
+    // 货舱中没有食物或规则关闭时的重新检查间隔
+    private static final int IDLE_INTERVAL = 200;
+    
+    // 最长检查间隔，阈值被修改后最迟这么久生效
+    private static final int MAX_INTERVAL = 1200;
+    
+    // 轮询队列，每只已加载的恶魂一个条目
+    private static final ArrayDeque<Entry> QUEUE = new ArrayDeque<>();
+    
+    // 恶魂UUID -> 队列中的条目，用于去重和卸载时移除
+    private static final Map<UUID, Entry> ENTRIES = new HashMap<>();
+    
+    /**
+     * 轮询条目
+     * 记录下一次需要检查的世界时间，未到时间的条目只做一次比较
+     * 恶魂卸载后条目失效，下一次轮到时从队列中丢弃
+     */
+    private static final class Entry {
+        private final HappyGhastEntity ghast;
+        private long nextCheck;
+        private boolean active = true;
+        
+        private Entry(HappyGhastEntity ghast, long nextCheck) {
+            this.ghast = ghast;
+            this.nextCheck = nextCheck;
+        }
+    }
+    
+    /**
+     * 注册自动进食所需的服务端事件
+     */
+    public static void register() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (QUEUE.isEmpty()) return;
+            long start = GhastProfiler.start();
+            tick(start);
+            GhastProfiler.record(GhastProfiler.Section.AUTO_FEED, start);
+        });
+        
+        // 恶魂加载时加入队列，按UUID错开首次检查，避免同一区块的恶魂挤在同一tick
+        // 同一实体重复触发加载事件时不重复加入
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (!(entity instanceof HappyGhastEntity ghast)) return;
+            
+            Entry old = ENTRIES.get(ghast.getUuid());
+            if (old != null) {
+                if (old.ghast == ghast) return;
+                old.active = false;
+            }
+            long offset = Math.floorMod(ghast.getUuid().getLeastSignificantBits(), FEED_INTERVAL);
+            Entry entry = new Entry(ghast, world.getTime() + offset);
+            ENTRIES.put(ghast.getUuid(), entry);
+            QUEUE.add(entry);
+        });
+        
+        // 恶魂卸载、死亡或切换维度时使条目失效，未加载区块中的恶魂不再检查
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof HappyGhastEntity ghast) {
+                Entry entry = ENTRIES.get(ghast.getUuid());
+                if (entry != null && entry.ghast == ghast) {
+                    ENTRIES.remove(ghast.getUuid());
+                    entry.active = false;
+                }
+            }
+        });
+        
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            QUEUE.clear();
+            ENTRIES.clear();
+        });
+    }
+    
+    /**
+     * 服务端tick处理
+     * 每个条目最多检查一次，超出预算时剩余条目顺延到下一tick
+     */
+    private static void tick(long start) {
+        int remaining = QUEUE.size();
+        while (remaining-- > 0 && System.nanoTime() - start < BUDGET_NANOS) {
+            Entry entry = QUEUE.poll();
+            
+            // 条目已失效（恶魂已卸载），丢弃，重新加载时会重新加入
+            if (!entry.active) continue;
+            if (entry.ghast.isRemoved() || !(entry.ghast.getEntityWorld() instanceof ServerWorld world)) {
+                ENTRIES.remove(entry.ghast.getUuid(), entry);
+                continue;
+            }
+            
+            long now = HungerScheduler.now(world);
+            if (now >= entry.nextCheck) {
+                entry.nextCheck = now + check(world, entry.ghast, now);
+            }
+            QUEUE.add(entry);
+        }
+    }
+    
+    /**
+     * 检查一只恶魂，饱食度低于阈值时从货舱吃一个食物
+     * @return 距离下一次检查的tick数
+     */
+    private static int check(ServerWorld world, HappyGhastEntity ghast, long now) {
+        if (!world.getGameRules().getBoolean(AUTO_FEED)) return IDLE_INTERVAL;
+        
+        HappyGhastData data = NetworkHandler.getOrCreateGhastData(ghast);
+        float hunger = data.getHunger(now);
+        float maxHunger = data.getMaxHunger();
+        float threshold = maxHunger * world.getGameRules().getInt(AUTO_FEED_THRESHOLD) / 100.0f;
+        
+        // 饱食度还高于阈值，按降低速度推算何时降到阈值
+        if (hunger >= threshold) {
+            float decayPerTick = data.getHungerDecayPerTick();
+            if (decayPerTick <= 0) return MAX_INTERVAL;
+            return (int) Math.min(MAX_INTERVAL, Math.max(1, Math.ceil((hunger - threshold) / decayPerTick)));
+        }
+        
+        CargoInventory cargo = GhastCargo.createInventory(ghast);
+        if (cargo == null) return IDLE_INTERVAL;
+        
+        Item food = pickFood(cargo.getCounts(), maxHunger - hunger);
+        if (food == null) return IDLE_INTERVAL;
+        
+        for (int slot = 0; slot < cargo.size(); slot++) {
+            ItemStack stack = cargo.getStack(slot);
+            if (!stack.isEmpty() && stack.getItem() == food) {
+                GhastFeeding.feed(ghast, stack);
+                GhastMetrics.count(GhastMetrics.Event.AUTO_FEED);
+                stack.decrement(1);
+                cargo.markDirty();
+                cargo.refresh();
+                GhastCargoIndex.update(world, ghast, cargo.getCounts());
+                break;
+            }
+        }
+        return FEED_INTERVAL;
+    }
+    
+    /**
+     * 选择最合适的食物
+     * 优先选择不会溢出的食物中恢复最多的，所有食物都会溢出时选择恢复最少的
+     * 
+     * @param counts 货舱中每种物品的总数
+     * @param missing 距离饱食度上限还差多少
+     * @return 食物，货舱中没有食物时返回null
+     */
+    private static Item pickFood(Object2IntMap<Item> counts, float missing) {
+        Item best = null;
+        float bestRestore = 0;
+        boolean bestFits = false;
+        for (Item item : counts.keySet()) {
+            if (!GhastFeeding.isFood(item)) continue;
+            
+            float restore = GhastFeeding.getHungerRestore(item);
+            boolean fits = restore <= missing;
+            boolean better;
+            if (best == null || fits != bestFits) {
+                better = best == null || fits;
+            } else {
+                better = fits ? restore > bestRestore : restore < bestRestore;
+            }
+            if (better) {
+                best = item;
+                bestRestore = restore;
+                bestFits = fits;
+            }
+        }
+        return best;
+    }
+}
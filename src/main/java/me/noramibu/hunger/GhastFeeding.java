@@ -0,0 +1,122 @@
+package me.noramibu.hunger;
+
+import me.noramibu.NetworkHandler;
+import me.noramibu.data.HappyGhastData;
+import me.noramibu.level.LevelConfig;
+import me.noramibu.metrics.GhastMetrics;
+import me.noramibu.ownership.GhastOwnershipIndex;
+import net.minecraft.component.DataComponentTypes;
+import net.minecraft.component.type.FoodComponent;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.world.ServerWorld;
+
+/**
+ * 快乐恶魂喂食规则
+ * 玩家手动喂食和从货舱自动进食共用，饱食度和经验值的计算完全相同
+ */
+public class GhastFeeding {
+    // 食物没有营养值时恢复的饱食度
+    private static final float DEFAULT_HUNGER_RESTORE = 10.0f;
+    
+    /**
+     * 一次喂食的结果
+     * @param count 吃掉的食物数量
+     * @param hunger 恢复的饱食度
+     * @param experience 获得的经验值
+     * @param leveledUp 是否升级
+     */
+    public record Result(int count, float hunger, int experience, boolean leveledUp) {}
+    
+    /**
+     * 检查物品是否为食物
+     * 通过检查物品是否有食物组件来判断
+     */
+    public static boolean isFood(Item item) {
+        return item.getComponents().contains(DataComponentTypes.FOOD);
+    }
+    
+    /**
+     * 获取食物恢复的饱食度（营养值的2倍）
+     * @param item 食物
+     * @return 恢复的饱食度
+     */
+    public static float getHungerRestore(Item item) {
+        FoodComponent food = item.getComponents().get(DataComponentTypes.FOOD);
+        return food != null ? food.nutrition() * 2.0f : DEFAULT_HUNGER_RESTORE;
+    }
+    
+    /**
+     * 计算批量喂食需要的食物数量
+     * 取填满饱食度和升到下一级所需数量中较大的一个，不超过可用数量，至少为1
+     * 
+     * @param ghast 快乐恶魂
+     * @param food 食物
+     * @param available 可用的食物数量
+     * @return 需要吃掉的数量
+     */
+    public static int getBulkCount(HappyGhastEntity ghast, ItemStack food, int available) {
+        HappyGhastData data = NetworkHandler.getOrCreateGhastData(ghast);
+        float hungerRestore = getHungerRestore(food.getItem());
+        int expGain = LevelConfig.getExpFromFood(food.getItem());
+        
+        long needed = 0;
+        float missingHunger = data.getMaxHunger() - data.getHunger(HungerScheduler.now(ghast.getEntityWorld()));
+        if (hungerRestore > 0 && missingHunger > 0) {
+            needed = (long) Math.ceil(missingHunger / hungerRestore);
+        }
+        if (expGain > 0 && data.getLevel() < LevelConfig.getMaxLevel()) {
+            int missingExp = data.getExpToNextLevel() - data.getExperience();
+            needed = Math.max(needed, (missingExp + expGain - 1) / expGain);
+        }
+        return (int) Math.max(1, Math.min(needed, available));
+    }
+    
+    /**
+     * 给快乐恶魂喂一个食物
+     * 
+     * @param ghast 快乐恶魂
+     * @param food 食物
+     * @return 喂食结果
+     */
+    public static Result feed(HappyGhastEntity ghast, ItemStack food) {
+        return feed(ghast, food, 1);
+    }
+    
+    /**
+     * 给快乐恶魂喂多个相同的食物
+     * 饱食度和经验值一次性增加，结果与逐个喂食相同，但只更新一次索引和唤醒
+     * 更新主人索引，重新安排饱食度唤醒，升级时同步血量上限
+     * 不消耗物品，也不发送消息
+     * 
+     * @param ghast 快乐恶魂
+     * @param food 食物
+     * @param count 数量
+     * @return 喂食结果
+     */
+    public static Result feed(HappyGhastEntity ghast, ItemStack food, int count) {
+        HappyGhastData data = NetworkHandler.getOrCreateGhastData(ghast);
+        float hungerRestore = getHungerRestore(food.getItem()) * count;
+        int expGain = (int) Math.min(Integer.MAX_VALUE, (long) LevelConfig.getExpFromFood(food.getItem()) * count);
+        long now = HungerScheduler.now(ghast.getEntityWorld());
+        
+        data.addHunger(hungerRestore, now);
+        boolean leveledUp = data.addExperience(expGain, now);
+        GhastMetrics.count(GhastMetrics.Event.FEED);
+        
+        // 更新主人索引中的等级和位置
+        if (ghast.getEntityWorld() instanceof ServerWorld serverWorld) {
+            GhastOwnershipIndex.update(serverWorld, ghast);
+        }
+        
+        // 饱食度和等级都可能变化，重新安排饱食度耗尽的唤醒
+        HungerScheduler.schedule(ghast);
+        
+        if (leveledUp) {
+            GhastMetrics.count(GhastMetrics.Event.LEVEL_UP);
+            NetworkHandler.applyMaxHealth(ghast, data);
+        }
+        return new Result(count, hungerRestore, expGain, leveledUp);
+    }
+}
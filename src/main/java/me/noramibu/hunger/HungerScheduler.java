@@ -0,0 +1,181 @@
+package me.noramibu.hunger;
+
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import me.noramibu.NetworkHandler;
+import me.noramibu.data.HappyGhastData;
+import me.noramibu.metrics.GhastProfiler;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.world.World;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+
+/**
+ * 饱食度调度器
+ * 饱食度不再由每只快乐恶魂每tick轮询更新，而是根据锚点按需计算
+ * 调度器只在可见状态发生变化时（例如饱食度降为0）唤醒对应的恶魂
+ * 
+ * 所有时间都使用世界游戏时间（World.getTime()），因此：
+ * - 服务器卡顿或暂停时饱食度不会额外降低
+ * - 区块卸载期间经过的时间在重新加载时一次性结算，无需逐tick模拟
+ */
+public class HungerScheduler {
+    // 过期条目超过有效条目的这个倍数时重建队列
+    private static final int COMPACT_RATIO = 2;
+    
+    // 每个世界一个唤醒队列
+    private static final Map<ServerWorld, WakeQueue> QUEUES = new HashMap<>();
+    
+    /**
+     * 唤醒条目
+     * 只保存恶魂的UUID，不持有实体；唤醒时从世界中查找
+     * @param tick 唤醒的世界时间
+     * @param ghast 需要唤醒的快乐恶魂UUID
+     */
+    private record WakeEntry(long tick, UUID ghast) {}
+    
+    /**
+     * 一个世界的唤醒队列
+     * 每只恶魂只有一个有效的唤醒时间，重新安排时旧条目留在堆中，弹出时与有效时间不符即丢弃
+     */
+    private static final class WakeQueue {
+        // 按唤醒tick从小到大排序
+        final PriorityQueue<WakeEntry> heap = new PriorityQueue<>(Comparator.comparingLong(WakeEntry::tick));
+        
+        // 恶魂UUID -> 有效的唤醒tick
+        final Object2LongOpenHashMap<UUID> scheduled = new Object2LongOpenHashMap<>();
+        
+        boolean isCurrent(WakeEntry entry) {
+            return scheduled.containsKey(entry.ghast()) && scheduled.getLong(entry.ghast()) == entry.tick();
+        }
+    }
+    
+    /**
+     * 注册调度器所需的服务端事件
+     */
+    public static void register() {
+        // 每个世界每tick只检查一次队列头部，与恶魂数量无关
+        ServerTickEvents.END_WORLD_TICK.register(world -> {
+            long start = GhastProfiler.start();
+            tick(world);
+            GhastProfiler.record(GhastProfiler.Section.HUNGER_SCHEDULER, start);
+        });
+        
+        // 恶魂加载时按经过的游戏时间一次性结算饱食度，同步血量上限并安排唤醒
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof HappyGhastEntity ghast) {
+                HappyGhastData data = NetworkHandler.getOrCreateGhastData(ghast);
+                data.updateHunger(world.getTime());
+                NetworkHandler.applyMaxHealth(ghast, data);
+                schedule(ghast);
+            }
+        });
+        
+        // 恶魂卸载时取消唤醒，重新加载时会按经过的时间重新安排
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof HappyGhastEntity ghast) {
+                WakeQueue queue = QUEUES.get(world);
+                if (queue != null) {
+                    queue.scheduled.removeLong(ghast.getUuid());
+                }
+            }
+        });
+        
+        // 数据包重新加载后等级曲线可能变化，重新同步已加载恶魂的血量上限和唤醒时间
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) -> {
+            for (ServerWorld world : server.getWorlds()) {
+                for (Entity entity : world.iterateEntities()) {
+                    if (entity instanceof HappyGhastEntity ghast) {
+                        NetworkHandler.applyMaxHealth(ghast, NetworkHandler.getOrCreateGhastData(ghast));
+                        schedule(ghast);
+                    }
+                }
+            }
+        });
+        
+        // 世界卸载或服务端关闭时清空队列，避免持有旧世界的实体
+        ServerWorldEvents.UNLOAD.register((server, world) -> QUEUES.remove(world));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> QUEUES.clear());
+    }
+    
+    /**
+     * 获取世界的当前时间
+     * 所有饱食度计算都以此为准
+     * @param world 世界
+     * @return 世界游戏时间（tick）
+     */
+    public static long now(World world) {
+        return world.getTime();
+    }
+    
+    /**
+     * 为快乐恶魂安排下一次唤醒
+     * 在饱食度、等级发生变化后调用；每只恶魂只保留最新的一次唤醒，唤醒时间没有变化时不做任何事
+     * @param ghast 快乐恶魂实体
+     */
+    public static void schedule(HappyGhastEntity ghast) {
+        if (!(ghast.getEntityWorld() instanceof ServerWorld world)) return;
+        
+        WakeQueue queue = QUEUES.computeIfAbsent(world, w -> new WakeQueue());
+        UUID uuid = ghast.getUuid();
+        long wakeTick = NetworkHandler.getOrCreateGhastData(ghast).getStarveTick();
+        
+        // 不会耗尽饱食度，取消之前的唤醒
+        if (wakeTick == Long.MAX_VALUE) {
+            queue.scheduled.removeLong(uuid);
+            return;
+        }
+        
+        wakeTick = Math.max(wakeTick, world.getTime() + 1);
+        if (queue.scheduled.containsKey(uuid) && queue.scheduled.getLong(uuid) == wakeTick) return;
+        
+        queue.scheduled.put(uuid, wakeTick);
+        queue.heap.add(new WakeEntry(wakeTick, uuid));
+        
+        // 频繁喂食会在堆中留下大量旧条目，超过有效条目的一定倍数时一次性清理
+        if (queue.heap.size() > COMPACT_RATIO * queue.scheduled.size() + 64) {
+            queue.heap.removeIf(entry -> !queue.isCurrent(entry));
+        }
+    }
+    
+    /**
+     * 世界tick处理
+     * 依次处理该世界所有到期的唤醒条目
+     */
+    private static void tick(ServerWorld world) {
+        WakeQueue queue = QUEUES.get(world);
+        if (queue == null) return;
+        
+        long now = world.getTime();
+        while (!queue.heap.isEmpty() && queue.heap.peek().tick() <= now) {
+            WakeEntry entry = queue.heap.poll();
+            
+            // 已被重新安排或取消的旧条目，直接丢弃
+            if (!queue.isCurrent(entry)) continue;
+            queue.scheduled.removeLong(entry.ghast());
+            
+            // 实体已不在这个世界（死亡或区块卸载），丢弃该条目
+            if (!(world.getEntity(entry.ghast()) instanceof HappyGhastEntity ghast) || ghast.isRemoved()) continue;
+            
+            HappyGhastData data = NetworkHandler.getOrCreateGhastData(ghast);
+            
+            // 饱食度还没有耗尽（例如期间喂食但唤醒时间相同），按新的数据重新安排
+            if (data.getStarveTick() > now) {
+                schedule(ghast);
+                continue;
+            }
+            
+            // 饱食度已耗尽，结算为固定值，之后不再需要唤醒
+            data.updateHunger(now);
+        }
+    }
+}
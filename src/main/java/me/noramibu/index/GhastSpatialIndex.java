@@ -0,0 +1,187 @@
+package me.noramibu.index;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import me.noramibu.accessor.HappyGhastDataAccessor;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * 快乐恶魂空间索引
+ * 服务端按区块段（16x16x16）记录已加载的快乐恶魂，在加载、卸载和跨区块段移动时更新
+ * 查询时只访问相关的区块段，不需要扫描世界中的所有实体
+ */
+public class GhastSpatialIndex {
+    // 未加入索引时的区块段标记
+    public static final long UNINDEXED = Long.MIN_VALUE;
+    
+    // 实体位置到碰撞箱边缘的最大距离，查询时按此扩大范围，避免漏掉位置在相邻区块段的恶魂
+    private static final double ENTITY_MARGIN = 5.0;
+    
+    // 世界 -> (区块段坐标 -> 该区块段内的快乐恶魂)
+    private static final Map<ServerWorld, Long2ObjectMap<List<HappyGhastEntity>>> INDEX = new HashMap<>();
+    
+    /**
+     * 注册索引维护所需的事件
+     */
+    public static void register() {
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof HappyGhastEntity ghast) {
+                add(world, ghast, ChunkSectionPos.toLong(ghast.getBlockPos()));
+            }
+        });
+        
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof HappyGhastEntity ghast) {
+                remove(world, ghast);
+            }
+        });
+        
+        ServerWorldEvents.UNLOAD.register((server, world) -> INDEX.remove(world));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> INDEX.clear());
+    }
+    
+    /**
+     * 快乐恶魂位置变化时调用
+     * 只有跨越区块段时才会修改索引
+     * @param ghast 快乐恶魂实体
+     */
+    public static void onMove(HappyGhastEntity ghast) {
+        if (!(ghast instanceof HappyGhastDataAccessor accessor)) return;
+        
+        long current = accessor.getIndexedSection();
+        if (current == UNINDEXED) return;
+        
+        long section = ChunkSectionPos.toLong(ghast.getBlockPos());
+        if (section != current && ghast.getEntityWorld() instanceof ServerWorld world) {
+            remove(world, ghast);
+            add(world, ghast, section);
+        }
+    }
+    
+    /**
+     * 遍历与指定范围相交的区块段中的快乐恶魂
+     * @param world 世界
+     * @param box 查询范围（按实体位置判断，调用方需自行检查碰撞箱）
+     * @param consumer 对每只恶魂执行的操作
+     */
+    public static void forEachInBox(ServerWorld world, Box box, Consumer<HappyGhastEntity> consumer) {
+        Long2ObjectMap<List<HappyGhastEntity>> sections = INDEX.get(world);
+        if (sections == null || sections.isEmpty()) return;
+        
+        int minX = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.minX));
+        int minY = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.minY));
+        int minZ = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.minZ));
+        int maxX = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.maxX));
+        int maxY = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.maxY));
+        int maxZ = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.maxZ));
+        
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    List<HappyGhastEntity> ghasts = sections.get(ChunkSectionPos.asLong(x, y, z));
+                    if (ghasts == null) continue;
+                    for (int i = 0; i < ghasts.size(); i++) {
+                        consumer.accept(ghasts.get(i));
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * 查找视线上最近的快乐恶魂
+     * @param world 世界
+     * @param start 射线起点
+     * @param end 射线终点
+     * @return 与射线相交且距离起点最近的快乐恶魂，没有则返回null
+     */
+    public static HappyGhastEntity raycast(ServerWorld world, Vec3d start, Vec3d end) {
+        Long2ObjectMap<List<HappyGhastEntity>> sections = INDEX.get(world);
+        if (sections == null || sections.isEmpty()) return null;
+        
+        Box range = new Box(start, end).expand(ENTITY_MARGIN);
+        int minX = ChunkSectionPos.getSectionCoord(MathHelper.floor(range.minX));
+        int minY = ChunkSectionPos.getSectionCoord(MathHelper.floor(range.minY));
+        int minZ = ChunkSectionPos.getSectionCoord(MathHelper.floor(range.minZ));
+        int maxX = ChunkSectionPos.getSectionCoord(MathHelper.floor(range.maxX));
+        int maxY = ChunkSectionPos.getSectionCoord(MathHelper.floor(range.maxY));
+        int maxZ = ChunkSectionPos.getSectionCoord(MathHelper.floor(range.maxZ));
+        
+        HappyGhastEntity nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+        
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    List<HappyGhastEntity> ghasts = sections.get(ChunkSectionPos.asLong(x, y, z));
+                    if (ghasts == null) continue;
+                    for (int i = 0; i < ghasts.size(); i++) {
+                        HappyGhastEntity ghast = ghasts.get(i);
+                        if (ghast.isSpectator() || !ghast.canHit()) continue;
+                        
+                        // 检查实体的边界框是否与视线相交，保留距离最近的一个
+                        Optional<Vec3d> hit = ghast.getBoundingBox().raycast(start, end);
+                        if (hit.isPresent()) {
+                            double distance = start.squaredDistanceTo(hit.get());
+                            if (distance < nearestDistance) {
+                                nearestDistance = distance;
+                                nearest = ghast;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        
+        return nearest;
+    }
+    
+    /**
+     * 将快乐恶魂加入指定区块段
+     */
+    private static void add(ServerWorld world, HappyGhastEntity ghast, long section) {
+        if (!(ghast instanceof HappyGhastDataAccessor accessor)) return;
+        
+        INDEX.computeIfAbsent(world, w -> new Long2ObjectOpenHashMap<>())
+            .computeIfAbsent(section, s -> new ArrayList<>(2))
+            .add(ghast);
+        accessor.setIndexedSection(section);
+    }
+    
+    /**
+     * 将快乐恶魂从所在区块段移除
+     */
+    private static void remove(ServerWorld world, HappyGhastEntity ghast) {
+        if (!(ghast instanceof HappyGhastDataAccessor accessor)) return;
+        
+        long section = accessor.getIndexedSection();
+        if (section == UNINDEXED) return;
+        accessor.setIndexedSection(UNINDEXED);
+        
+        Long2ObjectMap<List<HappyGhastEntity>> sections = INDEX.get(world);
+        if (sections == null) return;
+        
+        List<HappyGhastEntity> ghasts = sections.get(section);
+        if (ghasts != null) {
+            ghasts.remove(ghast);
+            if (ghasts.isEmpty()) {
+                sections.remove(section);
+            }
+        }
+    }
+}
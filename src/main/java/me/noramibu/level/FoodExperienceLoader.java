@@ -0,0 +1,95 @@
+package me.noramibu.level;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import me.noramibu.Chestonghast;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceType;
+import net.minecraft.util.Identifier;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 食物经验值数据包加载器
+ * 从 data/<命名空间>/ghast_food/*.json 读取食物经验值，在服务端启动和/reload时重新加载
+ * 
+ * 文件格式：
+ * {
+ *   "default": 8,
+ *   "values": { "minecraft:apple": 5, ... }
+ * }
+ * 多个数据包中的同名条目按加载顺序覆盖，优先级高的数据包生效
+ */
+public class FoodExperienceLoader implements SimpleSynchronousResourceReloadListener {
+    // 数据包中的目录
+    private static final String DIRECTORY = "ghast_food";
+    
+    // 未配置默认值时使用的经验值
+    private static final int FALLBACK_DEFAULT = 8;
+    
+    /**
+     * 注册数据包加载器
+     */
+    public static void register() {
+        ResourceManagerHelper.get(ResourceType.SERVER_DATA).registerReloadListener(new FoodExperienceLoader());
+    }
+    
+    @Override
+    public Identifier getFabricId() {
+        return Identifier.of(Chestonghast.MOD_ID, "food_experience");
+    }
+    
+    /**
+     * 重新加载食物经验值表
+     * 解析结果展开为按物品原始注册ID索引的数组，查询时无需分配对象
+     */
+    @Override
+    public void reload(ResourceManager manager) {
+        int[] table = new int[Registries.ITEM.size()];
+        Arrays.fill(table, -1);
+        int defaultExp = FALLBACK_DEFAULT;
+        int entries = 0;
+        
+        Map<Identifier, List<Resource>> files = manager.findAllResources(DIRECTORY, id -> id.getPath().endsWith(".json"));
+        for (Map.Entry<Identifier, List<Resource>> file : files.entrySet()) {
+            // 同一文件在多个数据包中存在时，按从低到高的优先级依次应用
+            for (Resource resource : file.getValue()) {
+                try (Reader reader = resource.getReader()) {
+                    JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+                    
+                    if (json.has("default")) {
+                        defaultExp = json.get("default").getAsInt();
+                    }
+                    
+                    if (json.has("values")) {
+                        for (Map.Entry<String, JsonElement> value : json.getAsJsonObject("values").entrySet()) {
+                            Identifier itemId = Identifier.tryParse(value.getKey());
+                            Optional<Item> item = itemId == null ? Optional.empty() : Registries.ITEM.getOptionalValue(itemId);
+                            if (item.isEmpty()) {
+                                Chestonghast.LOGGER.warn("食物经验值配置 {} 中存在未知物品 {}", file.getKey(), value.getKey());
+                                continue;
+                            }
+                            table[Registries.ITEM.getRawId(item.get())] = Math.max(0, value.getValue().getAsInt());
+                            entries++;
+                        }
+                    }
+                } catch (Exception e) {
+                    Chestonghast.LOGGER.error("无法读取食物经验值配置 {}", file.getKey(), e);
+                }
+            }
+        }
+        
+        LevelConfig.setFoodExpTable(table, defaultExp);
+        Chestonghast.LOGGER.info("已加载 {} 条食物经验值配置", entries);
+    }
+}
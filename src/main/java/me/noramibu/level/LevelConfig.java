@@ -1,17 +1,28 @@
 package me.noramibu.level;
 
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * 快乐恶魂等级配置类
- * 定义了6个等级，每个等级有不同的属性值
+ * 默认定义了6个等级，每个等级有不同的属性值，可以通过数据包替换为任意长度的等级曲线
  * 设计理念：等级越高，各项属性越强，游戏体验更好
+ * 
+ * 查询时使用展开后的基本类型数组，避免每次查询都访问对象
  */
 public class LevelConfig {
-    // 最大等级常量
-    public static final int MAX_LEVEL = 6;
+    // 食物经验值表，按物品原始注册ID索引，数据包加载前为空
+    private static volatile int[] foodExpTable = new int[0];
+    
+    // 未配置的可食用物品的默认经验值
+    private static volatile int defaultFoodExp = 8;
     
     /**
      * 等级属性数据类
-     * 封装每个等级的所有属性
+     * 封装每个等级的所有属性，用于定义和加载等级曲线
      */
     public static class LevelData {
         private final int level;              // 等级
@@ -43,8 +54,8 @@ public class LevelConfig {
         public float getHungerDecayRate() { return hungerDecayRate; }
     }
     
-    // 等级数据数组，索引0对应等级1
-    private static final LevelData[] LEVEL_DATA = new LevelData[] {
+    // 默认等级数据，索引0对应等级1，数据包未提供等级曲线时使用
+    private static final List<LevelData> DEFAULT_LEVELS = List.of(
         // 等级1：新生的快乐恶魂，属性较弱
         new LevelData(1, 20.0f, 20.0f, 100, 0.05f),
         
@@ -62,56 +73,195 @@ public class LevelConfig {
         
         // 等级6：最高等级，属性达到巅峰
         new LevelData(6, 120.0f, 120.0f, 0, 0.015f)  // 满级不需要经验值
-    };
+    );
+    
+    /**
+     * 展开后的等级曲线
+     * 所有数组索引0对应等级1，整体替换以保证读取时数据一致
+     */
+    private static final class Curve {
+        final List<LevelData> levels;
+        final int maxLevel;
+        final float[] maxHealth;
+        final float[] maxHunger;
+        final int[] expToNextLevel;
+        final float[] hungerDecayRate;
+        // 从等级1达到该等级所需的累计经验值（前缀和），用于一次跳过多个等级
+        final long[] totalExpToReach;
+        
+        Curve(List<LevelData> levels) {
+            this.levels = List.copyOf(levels);
+            this.maxLevel = levels.size();
+            this.maxHealth = new float[maxLevel];
+            this.maxHunger = new float[maxLevel];
+            this.expToNextLevel = new int[maxLevel];
+            this.hungerDecayRate = new float[maxLevel];
+            this.totalExpToReach = new long[maxLevel];
+            
+            for (int i = 0; i < maxLevel; i++) {
+                LevelData data = levels.get(i);
+                maxHealth[i] = data.getMaxHealth();
+                maxHunger[i] = data.getMaxHunger();
+                // 满级不需要经验值
+                expToNextLevel[i] = i == maxLevel - 1 ? 0 : data.getExpToNextLevel();
+                hungerDecayRate[i] = data.getHungerDecayRate();
+                if (i > 0) {
+                    totalExpToReach[i] = totalExpToReach[i - 1] + expToNextLevel[i - 1];
+                }
+            }
+        }
+    }
+    
+    // 当前生效的等级曲线
+    private static volatile Curve curve = new Curve(DEFAULT_LEVELS);
+    
+    /**
+     * 替换等级曲线
+     * 由数据包加载器在服务端启动和/reload时调用
+     * 客户端收到的曲线保存在ClientLevelCurve中，不修改这里
+     * @param levels 等级数据，索引0对应等级1，不能为空
+     */
+    public static void setLevels(List<LevelData> levels) {
+        if (levels.isEmpty()) {
+            throw new IllegalArgumentException("等级曲线至少需要一个等级");
+        }
+        curve = new Curve(levels);
+    }
+    
+    /**
+     * 恢复默认等级曲线
+     */
+    public static void resetLevels() {
+        curve = new Curve(DEFAULT_LEVELS);
+    }
+    
+    /**
+     * 获取默认等级曲线
+     * @return 不可修改的默认等级数据列表，索引0对应等级1
+     */
+    public static List<LevelData> getDefaultLevels() {
+        return DEFAULT_LEVELS;
+    }
+    
+    /**
+     * 获取当前等级曲线的所有等级数据
+     * @return 不可修改的等级数据列表，索引0对应等级1
+     */
+    public static List<LevelData> getLevels() {
+        return curve.levels;
+    }
+    
+    /**
+     * 获取最大等级
+     * @return 当前等级曲线的最大等级
+     */
+    public static int getMaxLevel() {
+        return curve.maxLevel;
+    }
+    
+    /**
+     * 将等级限制在有效范围内并转换为数组下标
+     */
+    private static int index(Curve c, int level) {
+        if (level < 1) return 0;
+        if (level > c.maxLevel) return c.maxLevel - 1;
+        return level - 1;
+    }
+    
+    /**
+     * 获取指定等级的最大血量
+     * @param level 等级，超出范围时按最近的有效等级计算
+     * @return 最大血量
+     */
+    public static float getMaxHealth(int level) {
+        Curve c = curve;
+        return c.maxHealth[index(c, level)];
+    }
+    
+    /**
+     * 获取指定等级的最大饱食度
+     * @param level 等级，超出范围时按最近的有效等级计算
+     * @return 最大饱食度
+     */
+    public static float getMaxHunger(int level) {
+        Curve c = curve;
+        return c.maxHunger[index(c, level)];
+    }
     
     /**
-     * 获取指定等级的配置数据
-     * @param level 等级（1-6）
-     * @return 对应等级的数据，如果等级无效则返回等级1的数据
+     * 获取指定等级升级所需的经验值
+     * @param level 等级，超出范围时按最近的有效等级计算
+     * @return 升级所需经验值，满级返回0
      */
-    public static LevelData getLevelData(int level) {
-        // 边界检查：确保等级在有效范围内
-        if (level < 1) level = 1;
-        if (level > MAX_LEVEL) level = MAX_LEVEL;
-        return LEVEL_DATA[level - 1];
+    public static int getExpToNextLevel(int level) {
+        Curve c = curve;
+        return c.expToNextLevel[index(c, level)];
+    }
+    
+    /**
+     * 获取指定等级的饱食度降低速率
+     * @param level 等级，超出范围时按最近的有效等级计算
+     * @return 每秒降低的饱食度
+     */
+    public static float getHungerDecayRate(int level) {
+        Curve c = curve;
+        return c.hungerDecayRate[index(c, level)];
+    }
+    
+    /**
+     * 获取从等级1达到指定等级所需的累计经验值
+     * @param level 等级，超出范围时按最近的有效等级计算
+     * @return 累计经验值
+     */
+    public static long getTotalExpToReach(int level) {
+        Curve c = curve;
+        return c.totalExpToReach[index(c, level)];
+    }
+    
+    /**
+     * 根据累计经验值计算等级
+     * 在前缀和数组上二分查找，复杂度O(log n)
+     * @param totalExp 从等级1开始的累计经验值
+     * @return 累计经验值对应的等级，不超过最大等级
+     */
+    public static int getLevelForTotalExp(long totalExp) {
+        Curve c = curve;
+        int index = Arrays.binarySearch(c.totalExpToReach, totalExp);
+        if (index < 0) {
+            // 未精确命中时，取最后一个不超过totalExp的位置
+            index = -index - 2;
+        } else {
+            // 累计值相同时（升级所需经验为0），取最高的等级
+            while (index + 1 < c.maxLevel && c.totalExpToReach[index + 1] == totalExp) index++;
+        }
+        return Math.max(0, index) + 1;
     }
     
     /**
      * 计算喂食获得的经验值
-     * 根据食物类型返回不同的经验值
-     * @param foodItem 食物物品ID
+     * 查表使用物品的原始注册ID作为数组下标，不需要字符串转换
+     * 表由数据包 data/<命名空间>/ghast_food/*.json 加载，见FoodExperienceLoader
+     * @param foodItem 食物物品
      * @return 经验值
      */
-    public static int getExpFromFood(String foodItem) {
-        // 基于食物价值设定经验值
-        // 这里可以根据需要扩展更多食物类型
-        return switch (foodItem) {
-            // 基础食物：低经验值
-            case "minecraft:apple", "minecraft:carrot", "minecraft:potato" -> 5;
-            
-            // 中级食物：中等经验值
-            case "minecraft:bread", "minecraft:cooked_chicken", "minecraft:cooked_mutton" -> 10;
-            
-            // 高级食物：高经验值
-            case "minecraft:cooked_beef", "minecraft:cooked_porkchop", "minecraft:golden_carrot" -> 20;
-            
-            // 顶级食物：超高经验值
-            case "minecraft:golden_apple", "minecraft:enchanted_golden_apple" -> 50;
-            
-            // 默认：所有其他可食用物品
-            default -> 8;
-        };
+    public static int getExpFromFood(Item foodItem) {
+        int rawId = Registries.ITEM.getRawId(foodItem);
+        int[] table = foodExpTable;
+        if (rawId >= 0 && rawId < table.length) {
+            int exp = table[rawId];
+            if (exp >= 0) return exp;
+        }
+        return defaultFoodExp;
     }
     
     /**
-     * 检查是否可以升级
-     * @param currentLevel 当前等级
-     * @param currentExp 当前经验值
-     * @return 如果可以升级返回true
+     * 替换食物经验值表
+     * 由数据包加载器在服务端启动和/reload时调用
+     * @param table 按原始注册ID索引的经验值数组，负数表示使用默认值
+     * @param defaultExp 未配置的食物的默认经验值
      */
-    public static boolean canLevelUp(int currentLevel, int currentExp) {
-        if (currentLevel >= MAX_LEVEL) return false;
-        LevelData data = getLevelData(currentLevel);
-        return currentExp >= data.getExpToNextLevel();
+    public static void setFoodExpTable(int[] table, int defaultExp) {
+        foodExpTable = table;
+        defaultFoodExp = defaultExp;
     }
 }
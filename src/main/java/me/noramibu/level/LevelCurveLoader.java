@@ -0,0 +1,114 @@
+package me.noramibu.level;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import me.noramibu.Chestonghast;
+import me.noramibu.data.HappyGhastData;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceType;
+import net.minecraft.util.Identifier;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 等级曲线数据包加载器
+ * 从 data/<命名空间>/ghast_levels/*.json 读取等级曲线，在服务端启动和/reload时重新加载
+ * 没有任何数据包提供等级曲线时使用LevelConfig中的默认6级曲线
+ * 
+ * 文件格式（数组顺序即等级顺序，最后一级的exp_to_next会被忽略）：
+ * {
+ *   "levels": [
+ *     { "max_health": 20, "max_hunger": 20, "exp_to_next": 100, "hunger_decay": 0.05 },
+ *     ...
+ *   ]
+ * }
+ * 多个文件都提供等级曲线时，优先级最高的数据包中的文件生效
+ */
+public class LevelCurveLoader implements SimpleSynchronousResourceReloadListener {
+    // 数据包中的目录
+    private static final String DIRECTORY = "ghast_levels";
+    
+    /**
+     * 注册数据包加载器
+     */
+    public static void register() {
+        ResourceManagerHelper.get(ResourceType.SERVER_DATA).registerReloadListener(new LevelCurveLoader());
+    }
+    
+    @Override
+    public Identifier getFabricId() {
+        return Identifier.of(Chestonghast.MOD_ID, "level_curve");
+    }
+    
+    /**
+     * 重新加载等级曲线
+     */
+    @Override
+    public void reload(ResourceManager manager) {
+        List<LevelConfig.LevelData> levels = null;
+        
+        Map<Identifier, List<Resource>> files = manager.findAllResources(DIRECTORY, id -> id.getPath().endsWith(".json"));
+        for (Map.Entry<Identifier, List<Resource>> file : files.entrySet()) {
+            // 按从低到高的优先级依次解析，后解析的覆盖先解析的
+            for (Resource resource : file.getValue()) {
+                try (Reader reader = resource.getReader()) {
+                    levels = parse(JsonParser.parseReader(reader).getAsJsonObject());
+                } catch (Exception e) {
+                    Chestonghast.LOGGER.error("无法读取等级曲线配置 {}", file.getKey(), e);
+                }
+            }
+        }
+        
+        if (levels == null) {
+            LevelConfig.resetLevels();
+        } else {
+            LevelConfig.setLevels(levels);
+        }
+        Chestonghast.LOGGER.info("已加载等级曲线，共 {} 级", LevelConfig.getMaxLevel());
+    }
+    
+    /**
+     * 解析并校验等级曲线
+     * @param json 配置文件内容
+     * @return 等级数据列表
+     * @throws IllegalArgumentException 数值无效时抛出
+     */
+    private static List<LevelConfig.LevelData> parse(JsonObject json) {
+        JsonArray array = json.getAsJsonArray("levels");
+        if (array == null || array.isEmpty()) {
+            throw new IllegalArgumentException("缺少levels数组或数组为空");
+        }
+        if (array.size() > HappyGhastData.MAX_LEVEL) {
+            throw new IllegalArgumentException("等级数量不能超过 " + HappyGhastData.MAX_LEVEL);
+        }
+        
+        List<LevelConfig.LevelData> levels = new ArrayList<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            JsonObject entry = array.get(i).getAsJsonObject();
+            int level = i + 1;
+            boolean last = level == array.size();
+            
+            float maxHealth = entry.get("max_health").getAsFloat();
+            float maxHunger = entry.get("max_hunger").getAsFloat();
+            JsonElement expElement = entry.get("exp_to_next");
+            int expToNext = last || expElement == null ? 0 : expElement.getAsInt();
+            float hungerDecay = entry.get("hunger_decay").getAsFloat();
+            
+            if (maxHealth <= 0 || maxHunger <= 0 || maxHunger > HappyGhastData.MAX_HUNGER || hungerDecay < 0
+                || (!last && (expToNext <= 0 || expToNext > HappyGhastData.MAX_EXPERIENCE))) {
+                throw new IllegalArgumentException("等级 " + level + " 的数值无效");
+            }
+            
+            levels.add(new LevelConfig.LevelData(level, maxHealth, maxHunger, expToNext, hungerDecay));
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,259 @@
+package me.noramibu.loadtest;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import me.noramibu.Chestonghast;
+import me.noramibu.NetworkHandler;
+import me.noramibu.metrics.GhastMetrics;
+import me.noramibu.metrics.GhastProfiler;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.entity.FakePlayer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.entity.SpawnReason;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.Hand;
+import net.minecraft.util.math.Vec3d;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 快乐恶魂负载测试
+ * 在无客户端的服务端上生成指定数量的快乐恶魂，用假玩家按脚本驱动喂食、放置箱子矿车、问候和打开GUI，
+ * 结束后报告每tick耗时以及各钩子所占的耗时
+ * 
+ * 用法：
+ * /ghastloadtest start <数量> [秒数]
+ * /ghastloadtest stop
+ * 
+ * 生成的恶魂禁用了AI，使结果主要反映本模组钩子的开销；测试结束后会移除生成的恶魂和箱子矿车
+ */
+public class GhastLoadTest {
+    // 默认测试时长（秒）
+    private static final int DEFAULT_SECONDS = 30;
+    
+    // 生成网格：每层边长和间距
+    private static final int GRID_SIDE = 16;
+    private static final int SPACING = 6;
+    
+    // 每只恶魂每秒被脚本访问一次，脚本按这个轮数循环
+    private static final int SCRIPT_ROUNDS = 6;
+    
+    // 当前正在运行的测试
+    private static Run current;
+    
+    /**
+     * 单次负载测试的状态
+     */
+    private static final class Run {
+        final ServerCommandSource source;
+        final ServerWorld world;
+        final List<HappyGhastEntity> ghasts;
+        final int totalTicks;
+        final FakePlayer player;
+        int ticksDone;
+        int cursor;
+        // 当前tick的开始时间，0表示还没有经过一个完整的tick
+        long tickStart;
+        long totalTickNanos;
+        long maxTickNanos;
+        
+        Run(ServerCommandSource source, ServerWorld world, List<HappyGhastEntity> ghasts, int totalTicks) {
+            this.source = source;
+            this.world = world;
+            this.ghasts = ghasts;
+            this.totalTicks = totalTicks;
+            this.player = FakePlayer.get(world);
+        }
+    }
+    
+    /**
+     * 注册命令和tick事件
+     */
+    public static void register() {
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) ->
+            dispatcher.register(CommandManager.literal("ghastloadtest")
+                .requires(source -> source.hasPermissionLevel(2))
+                .then(CommandManager.literal("start")
+                    .then(CommandManager.argument("count", IntegerArgumentType.integer(1, 10000))
+                        .executes(context -> start(context, DEFAULT_SECONDS))
+                        .then(CommandManager.argument("seconds", IntegerArgumentType.integer(1, 600))
+                            .executes(context -> start(context, IntegerArgumentType.getInteger(context, "seconds"))))))
+                .then(CommandManager.literal("stop")
+                    .executes(context -> {
+                        if (current == null) {
+                            context.getSource().sendError(Text.literal("没有正在运行的负载测试"));
+                            return 0;
+                        }
+                        finish();
+                        return 1;
+                    }))));
+        
+        ServerTickEvents.START_SERVER_TICK.register(server -> {
+            if (current != null) current.tickStart = System.nanoTime();
+        });
+        ServerTickEvents.END_SERVER_TICK.register(GhastLoadTest::tick);
+        
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+            if (current != null) finish();
+        });
+    }
+    
+    /**
+     * 开始负载测试
+     */
+    private static int start(CommandContext<ServerCommandSource> context, int seconds) {
+        ServerCommandSource source = context.getSource();
+        if (current != null) {
+            source.sendError(Text.literal("负载测试正在运行，请先执行 /ghastloadtest stop"));
+            return 0;
+        }
+        
+        int count = IntegerArgumentType.getInteger(context, "count");
+        ServerWorld world = source.getWorld();
+        List<HappyGhastEntity> ghasts = spawn(world, source.getPosition(), count);
+        if (ghasts.isEmpty()) {
+            source.sendError(Text.literal("无法在当前位置生成快乐恶魂"));
+            return 0;
+        }
+        
+        current = new Run(source, world, ghasts, seconds * 20);
+        // 清空统计，使报告只包含本次测试期间的数据
+        GhastMetrics.reset();
+        source.sendFeedback(() -> Text.literal("负载测试开始：" + ghasts.size() + " 只快乐恶魂，持续 " + seconds + " 秒"), true);
+        return 1;
+    }
+    
+    /**
+     * 在指定位置上方按网格生成快乐恶魂，每层16x16，向上堆叠
+     * 恶魂装备挽具，以便可以放置箱子矿车
+     */
+    private static List<HappyGhastEntity> spawn(ServerWorld world, Vec3d origin, int count) {
+        List<HappyGhastEntity> ghasts = new ArrayList<>(count);
+        double baseX = origin.x - GRID_SIDE * SPACING / 2.0;
+        double baseZ = origin.z - GRID_SIDE * SPACING / 2.0;
+        double baseY = origin.y + 10;
+        
+        for (int i = 0; i < count; i++) {
+            int layer = i / (GRID_SIDE * GRID_SIDE);
+            int inLayer = i % (GRID_SIDE * GRID_SIDE);
+            double y = baseY + layer * SPACING;
+            if (y > world.getTopYInclusive() - SPACING) break;
+            
+            HappyGhastEntity ghast = EntityType.HAPPY_GHAST.create(world, SpawnReason.COMMAND);
+            if (ghast == null) break;
+            
+            ghast.refreshPositionAndAngles(
+                baseX + (inLayer % GRID_SIDE) * SPACING, y, baseZ + (inLayer / GRID_SIDE) * SPACING, 0, 0);
+            ghast.setAiDisabled(true);
+            ghast.equipStack(EquipmentSlot.BODY, new ItemStack(Items.WHITE_HARNESS));
+            
+            if (world.spawnEntity(ghast)) {
+                ghasts.add(ghast);
+            }
+        }
+        return ghasts;
+    }
+    
+    /**
+     * 每tick执行脚本，统计tick耗时，到达时长后输出报告
+     */
+    private static void tick(MinecraftServer server) {
+        Run run = current;
+        if (run == null) return;
+        // 测试是在某个tick中途由命令启动的，这个tick没有开始时间，从下一个完整的tick开始执行和计时
+        if (run.tickStart == 0) return;
+        
+        // 每tick访问1/20的恶魂，使每只恶魂每秒被访问一次
+        int size = run.ghasts.size();
+        int perTick = Math.max(1, size / 20);
+        for (int i = 0; i < perTick; i++) {
+            int visit = run.cursor++;
+            HappyGhastEntity ghast = run.ghasts.get(visit % size);
+            if (ghast.isRemoved()) continue;
+            drive(run, ghast, visit / size);
+        }
+        
+        long tickNanos = System.nanoTime() - run.tickStart;
+        run.totalTickNanos += tickNanos;
+        run.maxTickNanos = Math.max(run.maxTickNanos, tickNanos);
+        
+        if (++run.ticksDone >= run.totalTicks) {
+            finish();
+        }
+    }
+    
+    /**
+     * 对一只恶魂执行一次脚本操作
+     * 第一次访问放置箱子矿车，之后按轮次依次潜行打开GUI、H键问候、GUI请求，其余轮次喂食
+     */
+    private static void drive(Run run, HappyGhastEntity ghast, int round) {
+        FakePlayer player = run.player;
+        // 站在恶魂正下方向上看，使问候的视线检测能命中这只恶魂
+        player.refreshPositionAndAngles(ghast.getX(), ghast.getY() - 3, ghast.getZ(), 0, -90);
+        player.setSneaking(false);
+        
+        if (round == 0) {
+            player.setStackInHand(Hand.MAIN_HAND, new ItemStack(Items.CHEST_MINECART));
+            ghast.interact(player, Hand.MAIN_HAND);
+            return;
+        }
+        
+        switch (round % SCRIPT_ROUNDS) {
+            case 1 -> {
+                player.setSneaking(true);
+                ghast.interact(player, Hand.MAIN_HAND);
+            }
+            case 2 -> NetworkHandler.handleGreet(player);
+            case 3 -> NetworkHandler.handleOpenGui(player, ghast.getId());
+            default -> {
+                player.setStackInHand(Hand.MAIN_HAND, new ItemStack(Items.BREAD));
+                ghast.interact(player, Hand.MAIN_HAND);
+            }
+        }
+    }
+    
+    /**
+     * 结束测试：输出报告并移除生成的实体
+     */
+    private static void finish() {
+        Run run = current;
+        current = null;
+        
+        int ticks = Math.max(1, run.ticksDone);
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("负载测试结束：%d 只快乐恶魂，%d tick%n", run.ghasts.size(), run.ticksDone));
+        report.append(String.format("平均tick耗时 %.3f ms，最大 %.3f ms%n",
+            run.totalTickNanos / 1e6 / ticks, run.maxTickNanos / 1e6));
+        for (GhastProfiler.Section section : GhastProfiler.Section.values()) {
+            long nanos = GhastProfiler.getNanos(section);
+            report.append(String.format("%-16s 调用 %8d 次，每tick %8.2f µs，占平均tick %5.2f%%%n",
+                section.name(), GhastProfiler.getCalls(section),
+                nanos / 1e3 / ticks,
+                run.totalTickNanos == 0 ? 0 : nanos * 100.0 / run.totalTickNanos));
+        }
+        
+        String text = report.toString().trim();
+        Chestonghast.LOGGER.info(text);
+        run.source.sendFeedback(() -> Text.literal(text), true);
+        
+        // 移除生成的恶魂和挂在上面的箱子矿车
+        for (HappyGhastEntity ghast : run.ghasts) {
+            for (Entity passenger : ghast.getPassengerList()) {
+                passenger.discard();
+            }
+            ghast.discard();
+        }
+    }
+}
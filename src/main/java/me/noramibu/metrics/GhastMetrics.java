@@ -0,0 +1,133 @@
+package me.noramibu.metrics;
+
+import me.noramibu.RequestLimiter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 模组的运行计数器
+ * 记录喂食、升级次数以及各类网络包的收发数量和发送字节数
+ * 与GhastProfiler的钩子耗时一起通过/ghaststats查看
+ * 
+ * 只在服务端主线程中调用
+ */
+public class GhastMetrics {
+    /**
+     * 事件计数器
+     */
+    public enum Event {
+        // 喂食
+        FEED,
+        // 升级
+        LEVEL_UP,
+        // 从货舱自动进食
+        AUTO_FEED
+    }
+    
+    /**
+     * 网络包类型
+     */
+    public enum Packet {
+        // 客户端到服务端
+        GREET_GHAST,
+        OPEN_GHAST_GUI,
+        CLOSE_GHAST_GUI,
+        FLEET_QUERY,
+        OPEN_CARGO,
+        CARGO_FIND,
+        RESYNC_GHAST,
+        // 服务端到客户端
+        SYNC_GHAST_DATA,
+        SYNC_GHAST_BATCH,
+        LEVEL_CURVE,
+        FLEET_STATUS,
+        CARGO_FIND_RESULT,
+        CARGO_MODULES
+    }
+    
+    private static final long[] EVENTS = new long[Event.values().length];
+    private static final long[] PACKETS_IN = new long[Packet.values().length];
+    private static final long[] PACKETS_OUT = new long[Packet.values().length];
+    private static final long[] BYTES_OUT = new long[Packet.values().length];
+    
+    /**
+     * 记录一次事件
+     * @param event 事件
+     */
+    public static void count(Event event) {
+        EVENTS[event.ordinal()]++;
+    }
+    
+    /**
+     * 记录收到一个网络包
+     * @param packet 网络包类型
+     */
+    public static void countReceived(Packet packet) {
+        PACKETS_IN[packet.ordinal()]++;
+    }
+    
+    /**
+     * 记录发送一个网络包
+     * @param packet 网络包类型
+     * @param bytes 负载字节数（不含包头）
+     */
+    public static void countSent(Packet packet, int bytes) {
+        PACKETS_OUT[packet.ordinal()]++;
+        BYTES_OUT[packet.ordinal()] += bytes;
+    }
+    
+    /**
+     * 获取事件次数
+     * @param event 事件
+     * @return 次数
+     */
+    public static long get(Event event) {
+        return EVENTS[event.ordinal()];
+    }
+    
+    /**
+     * 清空所有计数器和钩子耗时
+     */
+    public static void reset() {
+        Arrays.fill(EVENTS, 0);
+        Arrays.fill(PACKETS_IN, 0);
+        Arrays.fill(PACKETS_OUT, 0);
+        Arrays.fill(BYTES_OUT, 0);
+        GhastProfiler.reset();
+    }
+    
+    /**
+     * 生成统计报告
+     * @return 报告的每一行
+     */
+    public static List<String> report() {
+        List<String> lines = new ArrayList<>();
+        
+        lines.add("钩子耗时（µs）：");
+        for (GhastProfiler.Section section : GhastProfiler.Section.values()) {
+            long calls = GhastProfiler.getCalls(section);
+            lines.add(String.format("  %-16s 调用 %8d  平均 %8.2f  p50 %8.2f  p99 %8.2f  最大 %8.2f",
+                section.name(), calls,
+                calls == 0 ? 0 : GhastProfiler.getNanos(section) / 1e3 / calls,
+                GhastProfiler.getPercentile(section, 0.5) / 1e3,
+                GhastProfiler.getPercentile(section, 0.99) / 1e3,
+                GhastProfiler.getMax(section) / 1e3));
+        }
+        
+        lines.add(String.format("事件：喂食 %d  升级 %d  自动进食 %d",
+            get(Event.FEED), get(Event.LEVEL_UP), get(Event.AUTO_FEED)));
+        
+        lines.add("网络包：");
+        for (Packet packet : Packet.values()) {
+            int i = packet.ordinal();
+            lines.add(String.format("  %-16s 收到 %8d  发送 %8d  发送字节 %10d",
+                packet.name(), PACKETS_IN[i], PACKETS_OUT[i], BYTES_OUT[i]));
+        }
+        
+        lines.add(String.format("限流：丢弃 %d  合并 %d",
+            RequestLimiter.getTotalDropped(), RequestLimiter.getTotalCoalesced()));
+        return lines;
+    }
+}
@@ -0,0 +1,134 @@
+package me.noramibu.metrics;
+
+import java.util.Arrays;
+
+/**
+ * 模组服务端钩子的耗时统计
+ * 按钩子分别累计调用次数、耗时和耗时分布，用于/ghaststats和负载测试
+ * 耗时分布按2的幂分桶，记录一次只需一次System.nanoTime()和几次数组写入
+ * 
+ * 只在服务端主线程中调用
+ */
+public class GhastProfiler {
+    /**
+     * 被统计的钩子
+     */
+    public enum Section {
+        // 玩家与快乐恶魂交互（喂食、打开GUI、放置箱子矿车）
+        INTERACT,
+        // H键问候请求处理
+        GREET,
+        // 打开GUI请求处理
+        OPEN_GUI,
+        // 舰队状态查询处理
+        FLEET_QUERY,
+        // 饱食度调度器的世界tick
+        HUNGER_SCHEDULER,
+        // GUI订阅的定期推送
+        SUBSCRIPTIONS,
+        // 附近恶魂的低频广播
+        NEARBY_BROADCAST,
+        // 从货舱自动进食的轮询
+        AUTO_FEED
+    }
+    
+    private static final int SECTION_COUNT = Section.values().length;
+    
+    // 分桶数量：第i个桶记录耗时在[2^(i-1), 2^i)纳秒之间的调用，最后一个桶记录更长的调用
+    private static final int BUCKETS = 40;
+    
+    // 每个钩子的累计耗时（纳秒）、调用次数和最长耗时
+    private static final long[] NANOS = new long[SECTION_COUNT];
+    private static final long[] CALLS = new long[SECTION_COUNT];
+    private static final long[] MAX = new long[SECTION_COUNT];
+    
+    // 每个钩子的耗时分布，按钩子顺序展平
+    private static final long[] HISTOGRAM = new long[SECTION_COUNT * BUCKETS];
+    
+    /**
+     * 清空统计数据
+     */
+    public static void reset() {
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            NANOS[i] = 0;
+            CALLS[i] = 0;
+            MAX[i] = 0;
+        }
+        Arrays.fill(HISTOGRAM, 0);
+    }
+    
+    /**
+     * 记录钩子开始时间
+     * @return 开始时间
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+    
+    /**
+     * 记录钩子结束
+     * @param section 钩子
+     * @param start start()的返回值
+     */
+    public static void record(Section section, long start) {
+        long elapsed = System.nanoTime() - start;
+        int index = section.ordinal();
+        NANOS[index] += elapsed;
+        CALLS[index]++;
+        if (elapsed > MAX[index]) MAX[index] = elapsed;
+        
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(elapsed));
+        HISTOGRAM[index * BUCKETS + bucket]++;
+    }
+    
+    /**
+     * 获取钩子的累计耗时
+     * @param section 钩子
+     * @return 累计耗时（纳秒）
+     */
+    public static long getNanos(Section section) {
+        return NANOS[section.ordinal()];
+    }
+    
+    /**
+     * 获取钩子的调用次数
+     * @param section 钩子
+     * @return 调用次数
+     */
+    public static long getCalls(Section section) {
+        return CALLS[section.ordinal()];
+    }
+    
+    /**
+     * 获取钩子的最长单次耗时
+     * @param section 钩子
+     * @return 最长耗时（纳秒）
+     */
+    public static long getMax(Section section) {
+        return MAX[section.ordinal()];
+    }
+    
+    /**
+     * 从耗时分布估算分位数
+     * 结果为所在桶的上界，最多高估一倍
+     * 
+     * @param section 钩子
+     * @param quantile 分位（0到1之间）
+     * @return 估算耗时（纳秒），没有调用时返回0
+     */
+    public static long getPercentile(Section section, double quantile) {
+        long calls = CALLS[section.ordinal()];
+        if (calls == 0) return 0;
+        
+        long target = Math.max(1, (long) Math.ceil(calls * quantile));
+        int offset = section.ordinal() * BUCKETS;
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += HISTOGRAM[offset + bucket];
+            if (seen >= target) {
+                return Math.min(1L << bucket, MAX[section.ordinal()]);
+            }
+        }
+        return MAX[section.ordinal()];
+    }
+}
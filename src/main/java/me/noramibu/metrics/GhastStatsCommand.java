@@ -0,0 +1,110 @@
+package me.noramibu.metrics;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import me.noramibu.Chestonghast;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+import net.minecraft.util.Util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * /ghaststats 管理命令
+ * 
+ * 用法：
+ * /ghaststats              查看统计
+ * /ghaststats reset        清空统计
+ * /ghaststats dump <秒数>  每隔指定秒数把统计追加到 logs/chest-on-ghast-stats.log，0为关闭
+ * 
+ * 报告在主线程生成，文件写入交给IO线程
+ */
+public class GhastStatsCommand {
+    // 定期写入的文件
+    private static final String DUMP_FILE = "chest-on-ghast-stats.log";
+    
+    // 定期写入间隔（tick），0为关闭
+    private static int dumpIntervalTicks;
+    
+    /**
+     * 注册命令和定期写入
+     */
+    public static void register() {
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) ->
+            dispatcher.register(CommandManager.literal("ghaststats")
+                .requires(source -> source.hasPermissionLevel(2))
+                .executes(context -> {
+                    send(context.getSource(), GhastMetrics.report());
+                    return 1;
+                })
+                .then(CommandManager.literal("reset")
+                    .executes(context -> {
+                        GhastMetrics.reset();
+                        context.getSource().sendFeedback(() -> Text.literal("统计已清空"), true);
+                        return 1;
+                    }))
+                .then(CommandManager.literal("dump")
+                    .then(CommandManager.argument("seconds", IntegerArgumentType.integer(0, 86400))
+                        .executes(context -> {
+                            int seconds = IntegerArgumentType.getInteger(context, "seconds");
+                            dumpIntervalTicks = seconds * 20;
+                            context.getSource().sendFeedback(() -> Text.literal(seconds == 0
+                                ? "已关闭定期写入统计"
+                                : "每 " + seconds + " 秒把统计写入 logs/" + DUMP_FILE), true);
+                            return 1;
+                        })))));
+        
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (dumpIntervalTicks > 0 && server.getTicks() % dumpIntervalTicks == 0) {
+                dump(GhastMetrics.report());
+            }
+        });
+        
+        // 服务端停止时关闭定期写入并清空统计，单人游戏中之后打开的世界从零开始统计
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            dumpIntervalTicks = 0;
+            GhastMetrics.reset();
+        });
+    }
+    
+    /**
+     * 把报告逐行发送给命令执行者
+     */
+    private static void send(ServerCommandSource source, List<String> lines) {
+        for (String line : lines) {
+            source.sendFeedback(() -> Text.literal(line), false);
+        }
+    }
+    
+    /**
+     * 在IO线程中把报告追加到文件
+     */
+    private static void dump(List<String> lines) {
+        StringBuilder text = new StringBuilder();
+        text.append("[").append(LocalDateTime.now()).append("]").append(System.lineSeparator());
+        for (String line : lines) {
+            text.append(line).append(System.lineSeparator());
+        }
+        
+        Path file = FabricLoader.getInstance().getGameDir().resolve("logs").resolve(DUMP_FILE);
+        Util.getIoWorkerExecutor().execute(() -> {
+            try {
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, text, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                Chestonghast.LOGGER.error("无法写入统计文件 {}", file, e);
+            }
+        });
+    }
+}
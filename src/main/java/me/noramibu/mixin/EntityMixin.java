@@ -0,0 +1,52 @@
+package me.noramibu.mixin;
+
+import me.noramibu.cargo.GhastCargoIndex;
+import me.noramibu.index.GhastSpatialIndex;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.entity.vehicle.ChestMinecartEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Mixin for Entity
+ * 快乐恶魂没有重写setPos和乘客相关方法，因此在Entity上注入以跟踪其位置和货舱变化
+ * 对其他实体只有一次类型判断
+ */
+@Mixin(Entity.class)
+public abstract class EntityMixin {
+    /**
+     * 注入到setPos方法
+     * 快乐恶魂跨越区块段时更新空间索引
+     */
+    @Inject(method = "setPos", at = @At("TAIL"))
+    private void onSetPos(double x, double y, double z, CallbackInfo ci) {
+        if ((Object) this instanceof HappyGhastEntity ghast) {
+            GhastSpatialIndex.onMove(ghast);
+        }
+    }
+    
+    /**
+     * 注入到addPassenger方法
+     * 箱子矿车骑上快乐恶魂时标记货舱索引待核对
+     */
+    @Inject(method = "addPassenger", at = @At("TAIL"))
+    private void onAddPassenger(Entity passenger, CallbackInfo ci) {
+        if ((Object) this instanceof HappyGhastEntity ghast && passenger instanceof ChestMinecartEntity) {
+            GhastCargoIndex.markDirty(ghast);
+        }
+    }
+    
+    /**
+     * 注入到removePassenger方法
+     * 箱子矿车离开快乐恶魂时标记货舱索引待核对
+     */
+    @Inject(method = "removePassenger", at = @At("TAIL"))
+    private void onRemovePassenger(Entity passenger, CallbackInfo ci) {
+        if ((Object) this instanceof HappyGhastEntity ghast && passenger instanceof ChestMinecartEntity) {
+            GhastCargoIndex.markDirty(ghast);
+        }
+    }
+}
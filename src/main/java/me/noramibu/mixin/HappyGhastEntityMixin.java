@@ -1,27 +1,35 @@
 package me.noramibu.mixin;
 
+import me.noramibu.NetworkHandler;
+import me.noramibu.accessor.GhastCargoAccessor;
 import me.noramibu.accessor.HappyGhastDataAccessor;
+import me.noramibu.cargo.CargoInventory;
+import me.noramibu.cargo.GhastCargo;
+import me.noramibu.cargo.GhastCargoIndex;
+import me.noramibu.cargo.NoCollisionTeam;
 import me.noramibu.data.HappyGhastData;
-import me.noramibu.level.LevelConfig;
-import me.noramibu.network.OpenGhastGuiPayload;
-import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
-import net.minecraft.component.DataComponentTypes;
+import me.noramibu.hunger.GhastFeeding;
+import me.noramibu.hunger.HungerScheduler;
+import me.noramibu.index.GhastSpatialIndex;
+import me.noramibu.metrics.GhastProfiler;
 import net.minecraft.entity.EntityType;
-import net.minecraft.entity.attribute.EntityAttributes;
 import net.minecraft.entity.passive.HappyGhastEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.vehicle.ChestMinecartEntity;
+import net.minecraft.inventory.Inventories;
+import net.minecraft.inventory.SimpleInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.nbt.NbtCompound;
-import net.minecraft.scoreboard.Scoreboard;
-import net.minecraft.scoreboard.Team;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.server.world.ServerWorld;
+import net.minecraft.storage.ReadView;
+import net.minecraft.storage.WriteView;
 import net.minecraft.text.Text;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.Hand;
-import net.minecraft.registry.Registries;
+import net.minecraft.util.profiler.Profiler;
+import net.minecraft.util.profiler.Profilers;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
@@ -30,38 +38,128 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import net.minecraft.entity.EquipmentSlot;
 
+import java.util.UUID;
+
 /**
  * Mixin for HappyGhastEntity
  * 添加等级系统、喂食系统、饱食度系统和GUI交互
- * 保留原有的箱子矿车放置功能
+ * 饱食度由HungerScheduler按需计算，不再注入tick方法
+ * 保留原有的箱子矿车放置功能，无实体货舱模式下箱子直接保存在恶魂上
  */
 @Mixin(HappyGhastEntity.class)
-public abstract class HappyGhastEntityMixin implements HappyGhastDataAccessor {
-    // 存储快乐恶魂的数据（等级、经验、饱食度等）
+public abstract class HappyGhastEntityMixin implements HappyGhastDataAccessor, GhastCargoAccessor {
+    // 存档中货舱的键名
+    @Unique
+    private static final String CARGO_KEY = "ChestOnGhastCargo";
+    
+    // 快乐恶魂数据的紧凑存储，含义见GhastDataStorage
+    @Unique
+    private int packedProgress;
+    @Unique
+    private char packedHunger;
+    @Unique
+    private int packedHungerTick;
+    @Unique
+    private UUID ghastOwner;
+    
+    // 读写上面字段的数据视图
     @Unique
     private HappyGhastData ghastData;
     
-    // 用于跟踪tick计数，控制饱食度更新频率
+    // 空间索引中记录的区块段
+    @Unique
+    private long indexedSection = GhastSpatialIndex.UNINDEXED;
+    
+    // 货舱模块数量，通过自定义网络包同步到客户端用于渲染
     @Unique
-    private int tickCounter = 0;
+    private int cargoModuleCount;
+    
+    // 货舱模块的物品栏，第一次使用时创建
+    @Unique
+    private SimpleInventory[] cargoModules;
     
     /**
      * 实现数据访问器接口 - 获取数据
      */
     @Override
     public HappyGhastData getGhastData() {
-        if (this.ghastData == null) {
-            this.ghastData = new HappyGhastData();
-        }
         return this.ghastData;
     }
     
+    // 实现紧凑存储接口
+    @Override
+    public int getPackedProgress() { return this.packedProgress; }
+    @Override
+    public void setPackedProgress(int progress) { this.packedProgress = progress; }
+    @Override
+    public char getPackedHunger() { return this.packedHunger; }
+    @Override
+    public void setPackedHunger(char hunger) { this.packedHunger = hunger; }
+    @Override
+    public int getPackedHungerTick() { return this.packedHungerTick; }
+    @Override
+    public void setPackedHungerTick(int tick) { this.packedHungerTick = tick; }
+    @Override
+    public UUID getGhastOwner() { return this.ghastOwner; }
+    @Override
+    public void setGhastOwner(UUID owner) { this.ghastOwner = owner; }
+    
+    /**
+     * 实现数据访问器接口 - 获取索引区块段
+     */
+    @Override
+    public long getIndexedSection() {
+        return this.indexedSection;
+    }
+    
     /**
-     * 实现数据访问器接口 - 设置数据
+     * 实现数据访问器接口 - 设置索引区块段
      */
     @Override
-    public void setGhastData(HappyGhastData data) {
-        this.ghastData = data;
+    public void setIndexedSection(long section) {
+        this.indexedSection = section;
+    }
+    
+    // 实现货舱模块接口
+    @Override
+    public int getCargoModuleCount() {
+        return this.cargoModuleCount;
+    }
+    
+    @Override
+    public void setCargoModuleCount(int count) {
+        this.cargoModuleCount = Math.max(0, Math.min(count, GhastCargo.MAX_MODULES));
+    }
+    
+    @Override
+    public boolean addCargoModule() {
+        if (this.cargoModuleCount >= GhastCargo.MAX_MODULES) {
+            return false;
+        }
+        this.cargoModuleCount++;
+        GhastCargo.syncModules((HappyGhastEntity) (Object) this);
+        return true;
+    }
+    
+    @Override
+    public SimpleInventory getCargoModule(int index) {
+        if (this.cargoModules == null) {
+            this.cargoModules = new SimpleInventory[GhastCargo.MAX_MODULES];
+        }
+        if (this.cargoModules[index] == null) {
+            this.cargoModules[index] = new SimpleInventory(CargoInventory.CART_SIZE);
+            // 模块内容变化时标记货舱索引待核对
+            this.cargoModules[index].addListener(
+                inventory -> GhastCargoIndex.markDirty((HappyGhastEntity) (Object) this));
+        }
+        return this.cargoModules[index];
+    }
+    
+    @Override
+    public void clearCargoModules() {
+        this.cargoModules = null;
+        this.cargoModuleCount = 0;
+        GhastCargo.syncModules((HappyGhastEntity) (Object) this);
     }
     
     /**
@@ -70,120 +168,178 @@ public abstract class HappyGhastEntityMixin implements HappyGhastDataAccessor {
      */
     @Inject(method = "<init>", at = @At("RETURN"))
     private void onInit(CallbackInfo ci) {
-        // 初始化快乐恶魂数据
-        this.ghastData = new HappyGhastData();
+        // 创建数据视图并初始化为等级1
+        this.ghastData = new HappyGhastData(this);
+        this.ghastData.reset();
     }
     
     /**
-     * 注入到tick方法
-     * 每个游戏tick都会执行，用于更新饱食度和血量上限
+     * 注入到writeCustomData方法
+     * 保存实体时把快乐恶魂数据写入一个紧凑的版本化复合标签
      */
-    @Inject(method = "tick", at = @At("HEAD"))
-    private void onTick(CallbackInfo ci) {
-        HappyGhastEntity ghast = (HappyGhastEntity) (Object) this;
+    @Inject(method = "writeCustomData", at = @At("TAIL"))
+    private void onWriteCustomData(WriteView view, CallbackInfo ci) {
+        NbtCompound nbt = new NbtCompound();
+        this.ghastData.writeToNbt(nbt);
+        view.put(HappyGhastData.NBT_KEY, NbtCompound.CODEC, nbt);
         
-        // 确保数据已初始化
-        if (this.ghastData == null) {
-            this.ghastData = new HappyGhastData();
+        // 货舱模块：数量和每个模块的物品
+        int modules = getCargoModuleCount();
+        if (modules > 0) {
+            WriteView cargo = view.get(CARGO_KEY);
+            cargo.putInt("Modules", modules);
+            for (int i = 0; i < modules; i++) {
+                Inventories.writeData(cargo.get("Module" + i), getCargoModule(i).getHeldStacks());
+            }
         }
+    }
+    
+    /**
+     * 注入到readCustomData方法
+     * 加载实体时恢复快乐恶魂数据，饱食度在实体加载事件中按经过的时间结算
+     */
+    @Inject(method = "readCustomData", at = @At("TAIL"))
+    private void onReadCustomData(ReadView view, CallbackInfo ci) {
+        view.read(HappyGhastData.NBT_KEY, NbtCompound.CODEC)
+            .ifPresent(this.ghastData::readFromNbt);
         
-        // 只在服务端执行
-        if (!ghast.getEntityWorld().isClient()) {
-            // 每20个tick（1秒）更新一次饱食度
-            tickCounter++;
-            if (tickCounter >= 20) {
-                ghastData.updateHunger();
-                tickCounter = 0;
-            }
-            
-            // 确保血量上限正确
-            updateMaxHealth(ghast);
+        // 货舱模块
+        ReadView cargo = view.getReadView(CARGO_KEY);
+        int modules = Math.min(cargo.getInt("Modules", 0), GhastCargo.MAX_MODULES);
+        setCargoModuleCount(modules);
+        for (int i = 0; i < modules; i++) {
+            SimpleInventory module = getCargoModule(i);
+            module.clear();
+            Inventories.readData(cargo.getReadView("Module" + i), module.getHeldStacks());
         }
     }
     
     /**
      * 注入到interactMob方法
      * 处理玩家与快乐恶魂的交互
+     * 
+     * 只统计服务端的耗时：客户端也会调用interactMob，而GhastProfiler只能在服务端主线程中使用，
+     * 单人游戏时客户端线程的调用会和内置服务端同时写入统计数据
      */
     @Inject(method = "interactMob", at = @At("HEAD"), cancellable = true)
     private void onInteractMob(PlayerEntity player, Hand hand, CallbackInfoReturnable<ActionResult> cir) {
-        HappyGhastEntity ghast = (HappyGhastEntity) (Object) this;
-        ItemStack itemStack = player.getStackInHand(hand);
+        if (((HappyGhastEntity) (Object) this).getEntityWorld().isClient()) {
+            handleInteract(player, hand, cir);
+            return;
+        }
         
-        // 确保数据已初始化
-        if (this.ghastData == null) {
-            this.ghastData = new HappyGhastData();
+        // 同时计入服务端的原版性能分析器，/debug和/perf的结果中可以看到交互的耗时
+        Profiler profiler = Profilers.get();
+        profiler.push("chestOnGhastInteract");
+        long start = GhastProfiler.start();
+        try {
+            handleInteract(player, hand, cir);
+        } finally {
+            GhastProfiler.record(GhastProfiler.Section.INTERACT, start);
+            profiler.pop();
         }
+    }
+    
+    /**
+     * 交互处理逻辑
+     * 喂食、Shift+右键批量喂食或打开GUI、放置箱子矿车
+     */
+    @Unique
+    private void handleInteract(PlayerEntity player, Hand hand, CallbackInfoReturnable<ActionResult> cir) {
+        HappyGhastEntity ghast = (HappyGhastEntity) (Object) this;
+        ItemStack itemStack = player.getStackInHand(hand);
         
         // 只在服务端处理交互
         if (!ghast.getEntityWorld().isClient()) {
-            // 检查是否按住Shift键 - 打开GUI
-            if (player.isSneaking()) {
+            boolean isFood = GhastFeeding.isFood(itemStack.getItem());
+            
+            // 检查是否按住Shift键 - 手持食物时批量喂食，否则打开GUI
+            if (player.isSneaking() && !isFood) {
                 if (player instanceof ServerPlayerEntity serverPlayer) {
-                    // 发送打开GUI的请求
-                    ServerPlayNetworking.send(
-                        serverPlayer, 
-                        new OpenGhastGuiPayload(ghast.getId())
-                    );
+                    // 直接发送数据，客户端收到后打开GUI
+                    NetworkHandler.sendGhastData(serverPlayer, ghast, true);
                     cir.setReturnValue(ActionResult.SUCCESS);
                     return;
                 }
             }
             
             // 检查是否手持食物 - 喂食
-            // 通过检查物品是否有食物组件来判断是否为食物
-            if (itemStack.getItem().getComponents().contains(net.minecraft.component.DataComponentTypes.FOOD)) {
-                // 获取食物ID
-                String foodId = Registries.ITEM.getId(itemStack.getItem()).toString();
-                
-                // 获取食物恢复的饱食度（使用默认值10）
-                float hungerRestore = 10.0f;
-                try {
-                    var foodComponent = itemStack.getItem().getComponents().get(net.minecraft.component.DataComponentTypes.FOOD);
-                    if (foodComponent != null) {
-                        hungerRestore = foodComponent.nutrition() * 2.0f;
-                    }
-                } catch (Exception ignored) {
-                    // 如果获取失败，使用默认值
+            if (isFood) {
+                // 第一个喂食的玩家成为主人
+                boolean newOwner = ghastData.getOwner() == null;
+                if (newOwner) {
+                    ghastData.setOwner(player.getUuid());
                 }
                 
-                // 获取食物给予的经验值
-                int expGain = LevelConfig.getExpFromFood(foodId);
+                // 批量喂食一次算出需要的数量（填满饱食度或升到下一级，最多整组）
+                int count = player.isSneaking()
+                    ? GhastFeeding.getBulkCount(ghast, itemStack, itemStack.getCount())
+                    : 1;
                 
-                // 添加饱食度
-                ghastData.addHunger(hungerRestore);
+                // 添加饱食度和经验值，规则与从货舱自动进食相同
+                GhastFeeding.Result result = GhastFeeding.feed(ghast, itemStack, count);
                 
-                // 添加经验值
-                boolean leveledUp = ghastData.addExperience(expGain);
+                // 有了主人后货舱才会被索引
+                if (newOwner && ghast.getEntityWorld() instanceof ServerWorld serverWorld) {
+                    GhastCargoIndex.refresh(serverWorld, ghast);
+                }
                 
-                // 如果升级了，更新血量上限并发送消息
-                if (leveledUp) {
-                    updateMaxHealth(ghast);
+                if (player.isSneaking()) {
+                    // 批量喂食只发送一条汇总消息，并立即同步一次数据
+                    player.sendMessage(result.leveledUp()
+                        ? Text.translatable("message.chest-on-ghast.fed_bulk_level_up",
+                            result.count(), (int)result.hunger(), result.experience(), ghastData.getLevel())
+                        : Text.translatable("message.chest-on-ghast.fed_bulk",
+                            result.count(), (int)result.hunger(), result.experience()),
+                        true);
+                    if (player instanceof ServerPlayerEntity serverPlayer) {
+                        NetworkHandler.sendGhastData(serverPlayer, ghast, false);
+                    }
+                } else {
+                    // 如果升级了，发送消息
+                    if (result.leveledUp()) {
+                        player.sendMessage(
+                            Text.translatable("message.chest-on-ghast.level_up", ghastData.getLevel()),
+                            false
+                        );
+                    }
+                    
+                    // 显示喂食反馈
                     player.sendMessage(
-                        Text.translatable("message.chest-on-ghast.level_up", ghastData.getLevel()),
-                        false
+                        Text.translatable("message.chest-on-ghast.fed", 
+                            (int)result.hunger(), result.experience()),
+                        true  // 显示在物品栏上方
                     );
                 }
                 
-                // 显示喂食反馈
-                player.sendMessage(
-                    Text.translatable("message.chest-on-ghast.fed", 
-                        (int)hungerRestore, expGain),
-                    true  // 显示在物品栏上方
-                );
-                
                 // 消耗食物
                 if (!player.getAbilities().creativeMode) {
-                    itemStack.decrement(1);
+                    itemStack.decrement(result.count());
                 }
                 
                 cir.setReturnValue(ActionResult.SUCCESS);
                 return;
             }
             
+            // 无实体货舱模式：箱子矿车变成恶魂身上的货舱模块，不生成实体
+            if (itemStack.isOf(Items.CHEST_MINECART) &&
+                !ghast.getEquippedStack(EquipmentSlot.BODY).isEmpty() &&
+                ghast.getEntityWorld() instanceof ServerWorld serverWorld &&
+                GhastCargo.isEntityFree(serverWorld)) {
+                
+                if (GhastCargo.getPartCount(ghast) < GhastCargo.MAX_PARTS && addCargoModule()) {
+                    if (!player.getAbilities().creativeMode) {
+                        itemStack.decrement(1);
+                    }
+                    cir.setReturnValue(ActionResult.SUCCESS);
+                }
+                return;
+            }
+            
             // 检查是否使用箱子矿车（保留原有功能）
             if (itemStack.isOf(Items.CHEST_MINECART) && 
                 ghast.getPassengerList().size() < 3 && 
+                GhastCargo.getPartCount(ghast) < GhastCargo.MAX_PARTS && 
                 !ghast.getEquippedStack(EquipmentSlot.BODY).isEmpty()) {
                 
                 // 创建并生成箱子矿车
@@ -205,54 +361,11 @@ public abstract class HappyGhastEntityMixin implements HappyGhastDataAccessor {
                 
                 // 设置无碰撞团队
                 if (ghast.getEntityWorld() instanceof ServerWorld serverWorld) {
-                    Scoreboard scoreboard = serverWorld.getScoreboard();
-                    Team team = scoreboard.getTeam("NoCollision");
-                    
-                    if (team == null) {
-                        team = scoreboard.addTeam("NoCollision");
-                        team.setCollisionRule(Team.CollisionRule.NEVER);
-                    } else if (team.getCollisionRule() != Team.CollisionRule.NEVER) {
-                        team.setCollisionRule(Team.CollisionRule.NEVER);
-                    }
-                    
-                    String command = String.format("team join NoCollision %s", 
-                        chestMinecart.getUuidAsString());
-                    try {
-                        serverWorld.getServer().getCommandManager().executeWithPrefix(
-                            serverWorld.getServer().getCommandSource().withSilent(), 
-                            command
-                        );
-                    } catch (Exception ignored) {
-                        // 忽略命令执行错误
-                    }
+                    NoCollisionTeam.join(serverWorld, chestMinecart);
                 }
                 
                 cir.setReturnValue(ActionResult.SUCCESS);
             }
         }
     }
-    
-    
-    /**
-     * 更新快乐恶魂的最大血量
-     * 根据当前等级设置正确的血量上限
-     */
-    @Unique
-    private void updateMaxHealth(HappyGhastEntity ghast) {
-        if (this.ghastData == null) return;
-        
-        float maxHealth = ghastData.getMaxHealth();
-        
-        // 获取当前血量上限属性
-        var maxHealthAttribute = ghast.getAttributeInstance(EntityAttributes.MAX_HEALTH);
-        if (maxHealthAttribute != null && maxHealthAttribute.getBaseValue() != maxHealth) {
-            // 设置新的血量上限
-            maxHealthAttribute.setBaseValue(maxHealth);
-            
-            // 如果当前血量超过新上限，调整当前血量
-            if (ghast.getHealth() > maxHealth) {
-                ghast.setHealth(maxHealth);
-            }
-        }
-    }
 }
@@ -0,0 +1,27 @@
+package me.noramibu.mixin;
+
+import me.noramibu.cargo.GhastCargoIndex;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.entity.vehicle.StorageMinecartEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Mixin for StorageMinecartEntity
+ * 骑在快乐恶魂上的箱子矿车被单独打开或被漏斗修改时，标记恶魂的货舱索引待核对
+ */
+@Mixin(StorageMinecartEntity.class)
+public abstract class StorageMinecartEntityMixin {
+    /**
+     * 注入到markDirty方法
+     * 玩家界面和漏斗修改物品后都会调用
+     */
+    @Inject(method = "markDirty", at = @At("HEAD"))
+    private void onMarkDirty(CallbackInfo ci) {
+        if (((StorageMinecartEntity) (Object) this).getVehicle() instanceof HappyGhastEntity ghast) {
+            GhastCargoIndex.markDirty(ghast);
+        }
+    }
+}
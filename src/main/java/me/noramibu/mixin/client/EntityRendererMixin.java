@@ -0,0 +1,33 @@
+package me.noramibu.mixin.client;
+
+import me.noramibu.client.render.GhastNameplateRenderer;
+import me.noramibu.client.render.GhastNameplateState;
+import net.minecraft.client.render.command.OrderedRenderCommandQueue;
+import net.minecraft.client.render.entity.EntityRenderer;
+import net.minecraft.client.render.entity.state.EntityRenderState;
+import net.minecraft.client.render.state.CameraRenderState;
+import net.minecraft.client.util.math.MatrixStack;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Mixin for EntityRenderer
+ * 快乐恶魂渲染器没有重写render，因此在EntityRenderer上注入以提交头顶信息
+ * 对其他实体只有一次类型判断
+ */
+@Mixin(EntityRenderer.class)
+public abstract class EntityRendererMixin {
+    /**
+     * 注入到render方法
+     * 此时矩阵已经平移到实体位置，实体已经通过视锥剔除
+     */
+    @Inject(method = "render", at = @At("TAIL"))
+    private void onRender(EntityRenderState state, MatrixStack matrices, OrderedRenderCommandQueue queue,
+                          CameraRenderState cameraState, CallbackInfo ci) {
+        if (state instanceof GhastNameplateState) {
+            GhastNameplateRenderer.render(state, matrices, queue, cameraState);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package me.noramibu.mixin.client;
+
+import me.noramibu.client.ClientGhastState;
+import me.noramibu.client.render.CargoRenderState;
+import me.noramibu.client.render.GhastNameplateState;
+import net.minecraft.client.render.entity.state.HappyGhastEntityRenderState;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+/**
+ * Mixin for HappyGhastEntityRenderState
+ * 添加货舱模块数量和头顶信息，供货舱渲染层和头顶信息使用
+ */
+@Mixin(HappyGhastEntityRenderState.class)
+public abstract class HappyGhastEntityRenderStateMixin implements CargoRenderState, GhastNameplateState {
+    @Unique
+    private int cargoModules;
+    
+    @Unique
+    private ClientGhastState nameplate;
+    
+    @Override
+    public int getCargoModules() {
+        return this.cargoModules;
+    }
+    
+    @Override
+    public void setCargoModules(int modules) {
+        this.cargoModules = modules;
+    }
+    
+    @Override
+    public ClientGhastState getNameplate() {
+        return this.nameplate;
+    }
+    
+    @Override
+    public void setNameplate(ClientGhastState state) {
+        this.nameplate = state;
+    }
+}
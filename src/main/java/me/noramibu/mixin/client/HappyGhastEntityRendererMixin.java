@@ -0,0 +1,30 @@
+package me.noramibu.mixin.client;
+
+import me.noramibu.accessor.GhastCargoAccessor;
+import me.noramibu.client.render.CargoRenderState;
+import me.noramibu.client.render.GhastNameplateRenderer;
+import net.minecraft.client.render.entity.HappyGhastEntityRenderer;
+import net.minecraft.client.render.entity.state.HappyGhastEntityRenderState;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Mixin for HappyGhastEntityRenderer
+ * 更新渲染状态时复制货舱模块数量和头顶信息
+ */
+@Mixin(HappyGhastEntityRenderer.class)
+public abstract class HappyGhastEntityRendererMixin {
+    /**
+     * 注入到updateRenderState方法
+     */
+    @Inject(method = "updateRenderState(Lnet/minecraft/entity/passive/HappyGhastEntity;Lnet/minecraft/client/render/entity/state/HappyGhastEntityRenderState;F)V", at = @At("TAIL"))
+    private void onUpdateRenderState(HappyGhastEntity entity, HappyGhastEntityRenderState state, float tickDelta, CallbackInfo ci) {
+        if (entity instanceof GhastCargoAccessor cargo) {
+            ((CargoRenderState) state).setCargoModules(cargo.getCargoModuleCount());
+        }
+        GhastNameplateRenderer.updateRenderState(entity, state);
+    }
+}
@@ -0,0 +1,52 @@
+package me.noramibu.network;
+
+import me.noramibu.Chestonghast;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * 在货舱中查找物品的网络包
+ * 客户端发送到服务端，服务端在货舱索引中查找玩家恶魂上的这些物品
+ * 
+ * 编码格式：数量(varint) + 每种物品的原始ID(varint)，物品注册表在连接时已同步，两端的原始ID一致
+ */
+public record CargoFindPayload(int[] items) implements CustomPayload {
+    // 一次最多查找的物品种类数
+    public static final int MAX_ITEMS = 8;
+    
+    // 网络包标识符
+    public static final CustomPayload.Id<CargoFindPayload> ID = 
+        new CustomPayload.Id<>(Identifier.of(Chestonghast.MOD_ID, "cargo_find"));
+    
+    // 编解码器，用于序列化和反序列化网络包
+    public static final PacketCodec<PacketByteBuf, CargoFindPayload> CODEC = 
+        PacketCodec.of(
+            (value, buf) -> {
+                buf.writeVarInt(value.items.length);
+                for (int item : value.items) {
+                    buf.writeVarInt(item);
+                }
+            },
+            buf -> {
+                // 超出上限的部分直接丢弃
+                int size = buf.readVarInt();
+                int[] items = new int[Math.min(Math.max(size, 0), MAX_ITEMS)];
+                for (int i = 0; i < size; i++) {
+                    int item = buf.readVarInt();
+                    if (i < items.length) items[i] = item;
+                }
+                return new CargoFindPayload(items);
+            }
+        );
+
+    /**
+     * 获取网络包ID
+     * @return 网络包的唯一标识符
+     */
+    @Override
+    public CustomPayload.Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
@@ -0,0 +1,91 @@
+package me.noramibu.network;
+
+import me.noramibu.Chestonghast;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.encoding.VarInts;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 货舱查找结果的网络包
+ * 服务端发送到客户端，列出玩家的哪些恶魂上有查找的物品
+ * 
+ * 编码格式：数量(varint) + 每条结果的物品原始ID(varint)、维度(identifier)、位置(long)、数量(varint)、是否已加载(boolean)
+ */
+public record CargoFindResultPayload(List<Entry> entries) implements CustomPayload {
+    /**
+     * 一只恶魂上一种物品的查找结果
+     */
+    public record Entry(
+        int item,             // 物品原始ID
+        Identifier dimension, // 恶魂所在维度
+        BlockPos pos,         // 位置，未加载时为最后已知位置
+        int count,            // 数量
+        boolean loaded        // 恶魂是否已加载
+    ) {}
+    
+    // 网络包标识符
+    public static final CustomPayload.Id<CargoFindResultPayload> ID = 
+        new CustomPayload.Id<>(Identifier.of(Chestonghast.MOD_ID, "cargo_find_result"));
+    
+    // 编解码器，用于序列化和反序列化网络包
+    public static final PacketCodec<PacketByteBuf, CargoFindResultPayload> CODEC = 
+        PacketCodec.of(
+            (value, buf) -> {
+                buf.writeVarInt(value.entries.size());
+                for (Entry entry : value.entries) {
+                    buf.writeVarInt(entry.item);
+                    buf.writeIdentifier(entry.dimension);
+                    buf.writeLong(entry.pos.asLong());
+                    buf.writeVarInt(entry.count);
+                    buf.writeBoolean(entry.loaded);
+                }
+            },
+            buf -> {
+                int size = buf.readVarInt();
+                List<Entry> entries = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    entries.add(new Entry(
+                        buf.readVarInt(),
+                        buf.readIdentifier(),
+                        BlockPos.fromLong(buf.readLong()),
+                        buf.readVarInt(),
+                        buf.readBoolean()
+                    ));
+                }
+                return new CargoFindResultPayload(entries);
+            }
+        );
+    
+    /**
+     * 计算编码后的负载字节数，用于统计发送量
+     * @return 字节数
+     */
+    public int encodedSize() {
+        int size = VarInts.getSizeInBytes(entries.size());
+        for (Entry entry : entries) {
+            int dimensionBytes = entry.dimension.toString().getBytes(StandardCharsets.UTF_8).length;
+            size += VarInts.getSizeInBytes(entry.item)
+                + VarInts.getSizeInBytes(dimensionBytes) + dimensionBytes
+                + Long.BYTES
+                + VarInts.getSizeInBytes(entry.count)
+                + 1;
+        }
+        return size;
+    }
+
+    /**
+     * 获取网络包ID
+     * @return 网络包的唯一标识符
+     */
+    @Override
+    public CustomPayload.Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
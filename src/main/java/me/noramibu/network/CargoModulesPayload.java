@@ -0,0 +1,48 @@
+package me.noramibu.network;
+
+import me.noramibu.Chestonghast;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.encoding.VarInts;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * 快乐恶魂货舱模块数量的网络包
+ * 服务端发送到客户端，用于在恶魂身上绘制无实体货舱模式的箱子
+ * 不使用实体追踪数据，原版客户端连接时恶魂的追踪数据布局保持不变
+ * 
+ * 编码格式：实体ID(varint) + 模块数量(varint)
+ */
+public record CargoModulesPayload(int entityId, int modules) implements CustomPayload {
+    // 网络包标识符
+    public static final CustomPayload.Id<CargoModulesPayload> ID = 
+        new CustomPayload.Id<>(Identifier.of(Chestonghast.MOD_ID, "cargo_modules"));
+    
+    // 编解码器，用于序列化和反序列化网络包
+    public static final PacketCodec<PacketByteBuf, CargoModulesPayload> CODEC = 
+        PacketCodec.of(
+            (value, buf) -> {
+                buf.writeVarInt(value.entityId);
+                buf.writeVarInt(value.modules);
+            },
+            buf -> new CargoModulesPayload(buf.readVarInt(), buf.readVarInt())
+        );
+    
+    /**
+     * 计算编码后的负载字节数，用于统计发送量
+     * @return 字节数
+     */
+    public int encodedSize() {
+        return VarInts.getSizeInBytes(entityId) + VarInts.getSizeInBytes(modules);
+    }
+    
+    /**
+     * 获取网络包ID
+     * @return 网络包的唯一标识符
+     */
+    @Override
+    public CustomPayload.Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
@@ -0,0 +1,33 @@
+package me.noramibu.network;
+
+import me.noramibu.Chestonghast;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * 关闭快乐恶魂GUI的网络包
+ * 客户端发送到服务端，取消对该恶魂数据的订阅
+ */
+public record CloseGhastGuiPayload(int entityId) implements CustomPayload {
+    // 网络包标识符
+    public static final CustomPayload.Id<CloseGhastGuiPayload> ID = 
+        new CustomPayload.Id<>(Identifier.of(Chestonghast.MOD_ID, "close_ghast_gui"));
+    
+    // 编解码器，用于序列化和反序列化网络包
+    public static final PacketCodec<PacketByteBuf, CloseGhastGuiPayload> CODEC = 
+        PacketCodec.of(
+            (value, buf) -> buf.writeVarInt(value.entityId), // 编码器：写入实体ID
+            buf -> new CloseGhastGuiPayload(buf.readVarInt())  // 解码器：读取实体ID
+        );
+
+    /**
+     * 获取网络包ID
+     * @return 网络包的唯一标识符
+     */
+    @Override
+    public CustomPayload.Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
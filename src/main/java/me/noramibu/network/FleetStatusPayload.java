@@ -0,0 +1,100 @@
+package me.noramibu.network;
+
+import me.noramibu.Chestonghast;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.encoding.VarInts;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 恶魂舰队状态的网络包（批量）
+ * 服务端发送到客户端，一个包包含多只快乐恶魂的状态，替代逐只打开GUI查询
+ * 
+ * 编码格式：数量(varint) + 每只恶魂的实体ID、等级、经验值、饱食度、血量(varint) + 位置(long) + 是否为主人(boolean)
+ * 饱食度和血量与SyncGhastDataPayload一样按0.1精度量化
+ */
+public record FleetStatusPayload(List<Entry> entries) implements CustomPayload {
+    /**
+     * 单只快乐恶魂的状态
+     */
+    public record Entry(
+        int entityId,       // 实体ID
+        int level,          // 等级
+        int experience,     // 经验值
+        float hunger,       // 饱食度
+        float currentHealth, // 当前血量
+        BlockPos pos,       // 位置
+        boolean owned       // 查询的玩家是否为主人
+    ) {}
+    
+    // 网络包标识符
+    public static final CustomPayload.Id<FleetStatusPayload> ID = 
+        new CustomPayload.Id<>(Identifier.of(Chestonghast.MOD_ID, "fleet_status"));
+    
+    // 编解码器，用于序列化和反序列化网络包
+    public static final PacketCodec<PacketByteBuf, FleetStatusPayload> CODEC = 
+        PacketCodec.of(
+            (value, buf) -> {
+                // 编码器：数量，然后逐只写入状态
+                buf.writeVarInt(value.entries.size());
+                for (Entry entry : value.entries) {
+                    buf.writeVarInt(entry.entityId);
+                    buf.writeVarInt(entry.level);
+                    buf.writeVarInt(entry.experience);
+                    buf.writeVarInt(SyncGhastDataPayload.quantize(entry.hunger));
+                    buf.writeVarInt(SyncGhastDataPayload.quantize(entry.currentHealth));
+                    buf.writeLong(entry.pos.asLong());
+                    buf.writeBoolean(entry.owned);
+                }
+            },
+            buf -> {
+                // 解码器：按相同顺序读取
+                int size = buf.readVarInt();
+                List<Entry> entries = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    entries.add(new Entry(
+                        buf.readVarInt(),
+                        buf.readVarInt(),
+                        buf.readVarInt(),
+                        SyncGhastDataPayload.dequantize(buf.readVarInt()),
+                        SyncGhastDataPayload.dequantize(buf.readVarInt()),
+                        BlockPos.fromLong(buf.readLong()),
+                        buf.readBoolean()
+                    ));
+                }
+                return new FleetStatusPayload(entries);
+            }
+        );
+    
+    /**
+     * 计算编码后的负载字节数，用于统计发送量
+     * @return 字节数
+     */
+    public int encodedSize() {
+        int size = VarInts.getSizeInBytes(entries.size());
+        for (Entry entry : entries) {
+            size += VarInts.getSizeInBytes(entry.entityId)
+                + VarInts.getSizeInBytes(entry.level)
+                + VarInts.getSizeInBytes(entry.experience)
+                + VarInts.getSizeInBytes(SyncGhastDataPayload.quantize(entry.hunger))
+                + VarInts.getSizeInBytes(SyncGhastDataPayload.quantize(entry.currentHealth))
+                + Long.BYTES
+                + 1;
+        }
+        return size;
+    }
+
+    /**
+     * 获取网络包ID
+     * @return 网络包的唯一标识符
+     */
+    @Override
+    public CustomPayload.Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
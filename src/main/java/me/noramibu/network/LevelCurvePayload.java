@@ -0,0 +1,70 @@
+package me.noramibu.network;
+
+import me.noramibu.Chestonghast;
+import me.noramibu.level.LevelConfig;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.encoding.VarInts;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 同步等级曲线的网络包
+ * 服务端发送到客户端，客户端据此计算最大血量、最大饱食度和升级所需经验
+ * 玩家加入服务器和数据包重新加载时发送
+ */
+public record LevelCurvePayload(List<LevelConfig.LevelData> levels) implements CustomPayload {
+    // 网络包标识符
+    public static final CustomPayload.Id<LevelCurvePayload> ID = 
+        new CustomPayload.Id<>(Identifier.of(Chestonghast.MOD_ID, "level_curve"));
+    
+    // 编解码器，用于序列化和反序列化网络包
+    public static final PacketCodec<PacketByteBuf, LevelCurvePayload> CODEC = 
+        PacketCodec.of(
+            (value, buf) -> {
+                // 编码器：等级数量，然后逐级写入属性
+                buf.writeVarInt(value.levels.size());
+                for (LevelConfig.LevelData data : value.levels) {
+                    buf.writeFloat(data.getMaxHealth());
+                    buf.writeFloat(data.getMaxHunger());
+                    buf.writeVarInt(data.getExpToNextLevel());
+                    buf.writeFloat(data.getHungerDecayRate());
+                }
+            },
+            buf -> {
+                // 解码器：按相同顺序读取
+                int size = buf.readVarInt();
+                List<LevelConfig.LevelData> levels = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    levels.add(new LevelConfig.LevelData(
+                        i + 1, buf.readFloat(), buf.readFloat(), buf.readVarInt(), buf.readFloat()
+                    ));
+                }
+                return new LevelCurvePayload(levels);
+            }
+        );
+
+    /**
+     * 计算编码后的负载字节数，用于统计发送量
+     * @return 字节数
+     */
+    public int encodedSize() {
+        int size = VarInts.getSizeInBytes(levels.size());
+        for (LevelConfig.LevelData data : levels) {
+            size += 3 * Float.BYTES + VarInts.getSizeInBytes(data.getExpToNextLevel());
+        }
+        return size;
+    }
+
+    /**
+     * 获取网络包ID
+     * @return 网络包的唯一标识符
+     */
+    @Override
+    public CustomPayload.Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
@@ -0,0 +1,33 @@
+package me.noramibu.network;
+
+import me.noramibu.Chestonghast;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * 打开快乐恶魂货舱的网络包
+ * 客户端发送到服务端，服务端打开玩家乘坐或正在看着的恶魂的货舱
+ */
+public record OpenCargoPayload() implements CustomPayload {
+    // 网络包标识符
+    public static final CustomPayload.Id<OpenCargoPayload> ID = 
+        new CustomPayload.Id<>(Identifier.of(Chestonghast.MOD_ID, "open_cargo"));
+    
+    // 编解码器，用于序列化和反序列化网络包
+    public static final PacketCodec<PacketByteBuf, OpenCargoPayload> CODEC = 
+        PacketCodec.of(
+            (value, buf) -> {}, // 编码器（无需传输数据）
+            buf -> new OpenCargoPayload() // 解码器
+        );
+
+    /**
+     * 获取网络包ID
+     * @return 网络包的唯一标识符
+     */
+    @Override
+    public CustomPayload.Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
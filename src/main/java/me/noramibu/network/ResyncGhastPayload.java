@@ -0,0 +1,37 @@
+package me.noramibu.network;
+
+import me.noramibu.Chestonghast;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+/**
+ * 请求重新发送快乐恶魂完整数据的网络包
+ * 客户端收到一只没有缓存的恶魂的增量数据时发送到服务端，服务端随后发送所有字段
+ */
+public record ResyncGhastPayload(int entityId, boolean openScreen) implements CustomPayload {
+    // 网络包标识符
+    public static final CustomPayload.Id<ResyncGhastPayload> ID = 
+        new CustomPayload.Id<>(Identifier.of(Chestonghast.MOD_ID, "resync_ghast"));
+    
+    // 编解码器，用于序列化和反序列化网络包
+    public static final PacketCodec<PacketByteBuf, ResyncGhastPayload> CODEC = 
+        PacketCodec.of(
+            (value, buf) -> {
+                // 编码器：写入实体ID和是否打开GUI
+                buf.writeVarInt(value.entityId);
+                buf.writeBoolean(value.openScreen);
+            },
+            buf -> new ResyncGhastPayload(buf.readVarInt(), buf.readBoolean()) // 解码器：按相同顺序读取
+        );
+
+    /**
+     * 获取网络包ID
+     * @return 网络包的唯一标识符
+     */
+    @Override
+    public CustomPayload.Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
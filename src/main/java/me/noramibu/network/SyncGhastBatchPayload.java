@@ -0,0 +1,65 @@
+package me.noramibu.network;
+
+import me.noramibu.Chestonghast;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.encoding.VarInts;
+import net.minecraft.network.packet.CustomPayload;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量同步快乐恶魂数据的网络包
+ * 服务端定期发送到客户端，把附近多只恶魂的增量数据合并为一个包，供头顶信息显示使用
+ * 
+ * 编码格式：数量(varint) + 每只恶魂按SyncGhastDataPayload的格式编码
+ */
+public record SyncGhastBatchPayload(List<SyncGhastDataPayload> updates) implements CustomPayload {
+    // 网络包标识符
+    public static final CustomPayload.Id<SyncGhastBatchPayload> ID = 
+        new CustomPayload.Id<>(Identifier.of(Chestonghast.MOD_ID, "sync_ghast_batch"));
+    
+    // 编解码器，用于序列化和反序列化网络包
+    public static final PacketCodec<PacketByteBuf, SyncGhastBatchPayload> CODEC = 
+        PacketCodec.of(
+            (value, buf) -> {
+                // 编码器：数量，然后逐只写入增量数据
+                buf.writeVarInt(value.updates.size());
+                for (SyncGhastDataPayload update : value.updates) {
+                    SyncGhastDataPayload.CODEC.encode(buf, update);
+                }
+            },
+            buf -> {
+                // 解码器：按相同顺序读取
+                int size = buf.readVarInt();
+                List<SyncGhastDataPayload> updates = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    updates.add(SyncGhastDataPayload.CODEC.decode(buf));
+                }
+                return new SyncGhastBatchPayload(updates);
+            }
+        );
+    
+    /**
+     * 计算编码后的负载字节数，用于统计发送量
+     * @return 字节数
+     */
+    public int encodedSize() {
+        int size = VarInts.getSizeInBytes(updates.size());
+        for (SyncGhastDataPayload update : updates) {
+            size += update.encodedSize();
+        }
+        return size;
+    }
+
+    /**
+     * 获取网络包ID
+     * @return 网络包的唯一标识符
+     */
+    @Override
+    public CustomPayload.Id<? extends CustomPayload> getId() {
+        return ID;
+    }
+}
@@ -3,24 +3,43 @@ package me.noramibu.network;
 import me.noramibu.Chestonghast;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.network.codec.PacketCodec;
+import net.minecraft.network.encoding.VarInts;
 import net.minecraft.network.packet.CustomPayload;
 import net.minecraft.util.Identifier;
 
 /**
- * 同步快乐恶魂数据的网络包
- * 服务端发送到客户端，用于同步恶魂的数据并打开GUI
+ * 同步快乐恶魂数据的网络包（增量）
+ * 服务端发送到客户端，只包含发生变化的字段，由掩码标记
+ * 最大血量、最大饱食度、升级所需经验由客户端根据等级从LevelConfig计算，不再传输
+ * 
+ * 编码格式：实体ID(varint) + 掩码(byte) + 掩码中标记的字段(varint)
+ * 饱食度和血量按0.1精度量化为整数后以varint传输
  */
 public record SyncGhastDataPayload(
     int entityId,      // 实体ID
+    int mask,          // 变化字段掩码
     int level,         // 等级
     int experience,    // 经验值
     float hunger,      // 饱食度
-    float maxHealth,   // 最大血量
-    float currentHealth, // 当前血量
-    float maxHunger,   // 最大饱食度
-    int expToNext      // 升级所需经验
+    float currentHealth // 当前血量
 ) implements CustomPayload {
     
+    // 字段掩码
+    public static final int LEVEL = 1;
+    public static final int EXPERIENCE = 1 << 1;
+    public static final int HUNGER = 1 << 2;
+    public static final int HEALTH = 1 << 3;
+    public static final int ALL_FIELDS = LEVEL | EXPERIENCE | HUNGER | HEALTH;
+    
+    // 标志位：客户端收到后打开GUI
+    public static final int OPEN_SCREEN = 1 << 7;
+    
+    // 客户端缓存和服务端发送记录共用的容量，两边必须一致
+    public static final int CACHE_CAPACITY = 256;
+    
+    // 饱食度和血量的量化倍数（精度0.1）
+    private static final float QUANTUM = 10.0f;
+    
     // 网络包标识符
     public static final CustomPayload.Id<SyncGhastDataPayload> ID = 
         new CustomPayload.Id<>(Identifier.of(Chestonghast.MOD_ID, "sync_ghast_data"));
@@ -29,28 +48,74 @@ public record SyncGhastDataPayload(
     public static final PacketCodec<PacketByteBuf, SyncGhastDataPayload> CODEC = 
         PacketCodec.of(
             (value, buf) -> {
-                // 编码器：按顺序写入所有数据
-                buf.writeInt(value.entityId);
-                buf.writeInt(value.level);
-                buf.writeInt(value.experience);
-                buf.writeFloat(value.hunger);
-                buf.writeFloat(value.maxHealth);
-                buf.writeFloat(value.currentHealth);
-                buf.writeFloat(value.maxHunger);
-                buf.writeInt(value.expToNext);
+                // 编码器：先写入实体ID和掩码，再按顺序写入掩码中标记的字段
+                buf.writeVarInt(value.entityId);
+                buf.writeByte(value.mask);
+                if (value.has(LEVEL)) buf.writeVarInt(value.level);
+                if (value.has(EXPERIENCE)) buf.writeVarInt(value.experience);
+                if (value.has(HUNGER)) buf.writeVarInt(quantize(value.hunger));
+                if (value.has(HEALTH)) buf.writeVarInt(quantize(value.currentHealth));
             },
-            buf -> new SyncGhastDataPayload(
-                // 解码器：按顺序读取所有数据
-                buf.readInt(),   // entityId
-                buf.readInt(),   // level
-                buf.readInt(),   // experience
-                buf.readFloat(), // hunger
-                buf.readFloat(), // maxHealth
-                buf.readFloat(), // currentHealth
-                buf.readFloat(), // maxHunger
-                buf.readInt()    // expToNext
-            )
+            buf -> {
+                // 解码器：未包含的字段置0，由客户端保留缓存中的旧值
+                int entityId = buf.readVarInt();
+                int mask = buf.readUnsignedByte();
+                int level = (mask & LEVEL) != 0 ? buf.readVarInt() : 0;
+                int experience = (mask & EXPERIENCE) != 0 ? buf.readVarInt() : 0;
+                float hunger = (mask & HUNGER) != 0 ? dequantize(buf.readVarInt()) : 0;
+                float currentHealth = (mask & HEALTH) != 0 ? dequantize(buf.readVarInt()) : 0;
+                return new SyncGhastDataPayload(entityId, mask, level, experience, hunger, currentHealth);
+            }
         );
+    
+    /**
+     * 检查掩码中是否包含指定字段
+     * @param field 字段掩码
+     * @return 包含返回true
+     */
+    public boolean has(int field) {
+        return (mask & field) != 0;
+    }
+    
+    /**
+     * 检查是否包含所有字段
+     * 客户端没有这只恶魂的缓存时只能应用完整的数据
+     * @return 包含所有字段返回true
+     */
+    public boolean isComplete() {
+        return (mask & ALL_FIELDS) == ALL_FIELDS;
+    }
+    
+    /**
+     * 计算编码后的负载字节数，用于统计发送量
+     * @return 字节数
+     */
+    public int encodedSize() {
+        int size = VarInts.getSizeInBytes(entityId) + 1;
+        if (has(LEVEL)) size += VarInts.getSizeInBytes(level);
+        if (has(EXPERIENCE)) size += VarInts.getSizeInBytes(experience);
+        if (has(HUNGER)) size += VarInts.getSizeInBytes(quantize(hunger));
+        if (has(HEALTH)) size += VarInts.getSizeInBytes(quantize(currentHealth));
+        return size;
+    }
+    
+    /**
+     * 将饱食度或血量量化为整数
+     * @param value 原始值
+     * @return 量化后的值
+     */
+    public static int quantize(float value) {
+        return Math.max(0, Math.round(value * QUANTUM));
+    }
+    
+    /**
+     * 将量化后的整数还原为浮点值
+     * @param quantized 量化值
+     * @return 原始值（精度0.1）
+     */
+    public static float dequantize(int quantized) {
+        return quantized / QUANTUM;
+    }
 
     /**
      * 获取网络包ID
@@ -0,0 +1,66 @@
+package me.noramibu.ownership;
+
+import com.mojang.brigadier.context.CommandContext;
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.minecraft.command.argument.EntityArgumentType;
+import net.minecraft.command.argument.UuidArgumentType;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.UUID;
+
+/**
+ * /ghastowner 管理命令
+ * 通过主人索引列出玩家拥有的所有快乐恶魂，不加载区块
+ * 
+ * 用法：
+ * /ghastowner <玩家>       查询在线玩家
+ * /ghastowner uuid <UUID>  按UUID查询，可用于离线玩家
+ */
+public class GhastOwnerCommand {
+    /**
+     * 注册命令
+     */
+    public static void register() {
+        CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) ->
+            dispatcher.register(CommandManager.literal("ghastowner")
+                .requires(source -> source.hasPermissionLevel(2))
+                .then(CommandManager.argument("player", EntityArgumentType.player())
+                    .executes(context -> list(context,
+                        EntityArgumentType.getPlayer(context, "player").getUuid())))
+                .then(CommandManager.literal("uuid")
+                    .then(CommandManager.argument("uuid", UuidArgumentType.uuid())
+                        .executes(context -> list(context,
+                            UuidArgumentType.getUuid(context, "uuid")))))));
+    }
+    
+    /**
+     * 列出玩家在所有世界拥有的恶魂
+     * 已加载的恶魂显示实时位置，未加载的显示最后已知位置
+     */
+    private static int list(CommandContext<ServerCommandSource> context, UUID owner) {
+        ServerCommandSource source = context.getSource();
+        int count = 0;
+        
+        for (ServerWorld world : source.getServer().getWorlds()) {
+            String dimension = world.getRegistryKey().getValue().toString();
+            for (GhastOwnershipIndex.Entry entry : GhastOwnershipIndex.get(world).getOwned(owner)) {
+                Entity loaded = world.getEntity(entry.getGhast());
+                BlockPos pos = loaded != null ? loaded.getBlockPos() : entry.getPos();
+                String line = String.format("%s [%d, %d, %d] Lv.%d %s",
+                    dimension, pos.getX(), pos.getY(), pos.getZ(), entry.getLevel(),
+                    loaded != null ? "已加载" : "未加载");
+                source.sendFeedback(() -> Text.literal(line), false);
+                count++;
+            }
+        }
+        
+        int total = count;
+        source.sendFeedback(() -> Text.literal("玩家 " + owner + " 共拥有 " + total + " 只快乐恶魂"), false);
+        return total;
+    }
+}
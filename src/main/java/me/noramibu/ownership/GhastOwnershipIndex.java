@@ -0,0 +1,314 @@
+package me.noramibu.ownership;
+
+import me.noramibu.Chestonghast;
+import me.noramibu.NetworkHandler;
+import me.noramibu.data.HappyGhastData;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.nbt.NbtSizeTracker;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.WorldSavePath;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.dimension.DimensionType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 快乐恶魂主人索引（注册表）
+ * 每个世界一份，记录玩家UUID到其快乐恶魂的UUID、最后已知位置和等级
+ * 恶魂所在区块未加载时也能按玩家查询，不需要加载区块或遍历实体
+ * 
+ * 索引在恶魂加载、卸载、喂食和死亡时增量更新
+ * 有变化时每隔FLUSH_INTERVAL_TICKS生成一次快照交给后台线程写入 data/chest-on-ghast_registry.dat，
+ * 多次变化合并为一次写入，主线程不做磁盘写入；世界卸载和服务器关闭时等待写入完成
+ * 
+ * 只在服务端主线程中调用（快照写入除外）
+ */
+public class GhastOwnershipIndex {
+    /**
+     * 一只有主人的快乐恶魂的记录
+     */
+    public static final class Entry {
+        private final UUID ghast;
+        private UUID owner;
+        private long pos;
+        private int level;
+        
+        Entry(UUID ghast, UUID owner, long pos, int level) {
+            this.ghast = ghast;
+            this.owner = owner;
+            this.pos = pos;
+            this.level = level;
+        }
+        
+        public UUID getGhast() { return ghast; }
+        public UUID getOwner() { return owner; }
+        public BlockPos getPos() { return BlockPos.fromLong(pos); }
+        public int getLevel() { return level; }
+    }
+    
+    // 写入间隔（tick），服务器崩溃时最多丢失这段时间内的变化
+    private static final int FLUSH_INTERVAL_TICKS = 100;
+    
+    // 存档格式
+    private static final String FILE_NAME = Chestonghast.MOD_ID + "_registry.dat";
+    private static final byte FORMAT_VERSION = 1;
+    private static final String KEY_VERSION = "V";
+    private static final String KEY_ENTRIES = "E";
+    
+    // 快照中每条记录占用的long数：恶魂UUID(2) + 主人UUID(2) + 位置 + 等级
+    private static final int SNAPSHOT_STRIDE = 6;
+    
+    // 每个已加载世界的索引
+    private static final Map<ServerWorld, GhastOwnershipIndex> INDEXES = new HashMap<>();
+    
+    // 恶魂UUID -> 记录
+    private final Map<UUID, Entry> byGhast = new HashMap<>();
+    
+    // 主人UUID -> (恶魂UUID -> 记录)
+    private final Map<UUID, Map<UUID, Entry>> byOwner = new HashMap<>();
+    
+    // 索引文件
+    private final Path file;
+    
+    // 自上次提交快照以来是否有变化
+    private boolean dirty;
+    
+    private GhastOwnershipIndex(Path file) {
+        this.file = file;
+    }
+    
+    /**
+     * 获取世界的主人索引
+     * 索引在世界加载时已经读取，这里正常情况下只是一次哈希查找
+     * @param world 世界
+     * @return 主人索引
+     */
+    public static GhastOwnershipIndex get(ServerWorld world) {
+        return INDEXES.computeIfAbsent(world, GhastOwnershipIndex::load);
+    }
+    
+    /**
+     * 注册增量更新和定期写入所需的事件
+     */
+    public static void register() {
+        // 世界加载时读取索引，之后的实体事件和查询命令不再访问磁盘
+        ServerWorldEvents.LOAD.register((server, world) -> get(world));
+        
+        // 定期把有变化的索引交给后台线程写入
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (server.getTicks() % FLUSH_INTERVAL_TICKS == 0) {
+                for (GhastOwnershipIndex index : INDEXES.values()) {
+                    index.submit();
+                }
+            }
+        });
+        
+        // 世界卸载时提交最后的变化并等待写入完成
+        ServerWorldEvents.UNLOAD.register((server, world) -> {
+            GhastOwnershipIndex index = INDEXES.remove(world);
+            if (index != null) {
+                index.submit();
+                GhastRegistryWriter.flush();
+            }
+        });
+        
+        // 服务器关闭时写入所有索引
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            for (GhastOwnershipIndex index : INDEXES.values()) {
+                index.submit();
+            }
+            INDEXES.clear();
+            GhastRegistryWriter.flush();
+        });
+        
+        // 加载时记录位置和等级，恶魂从其他维度过来时也会在这里加入新世界的索引
+        ServerEntityEvents.ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof HappyGhastEntity ghast) {
+                update(world, ghast);
+            }
+        });
+        
+        // 死亡或被移除时删除记录，卸载时记录最后位置，切换维度时从当前世界删除
+        // 世界卸载后才卸载的实体不再重新创建索引
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (!(entity instanceof HappyGhastEntity ghast)) return;
+            
+            GhastOwnershipIndex index = INDEXES.get(world);
+            if (index == null) return;
+            
+            Entity.RemovalReason reason = ghast.getRemovalReason();
+            if (reason == null || reason == Entity.RemovalReason.UNLOADED_TO_CHUNK
+                || reason == Entity.RemovalReason.UNLOADED_WITH_PLAYER) {
+                HappyGhastData data = NetworkHandler.getOrCreateGhastData(ghast);
+                if (data.getOwner() != null) {
+                    index.put(ghast.getUuid(), data.getOwner(), ghast.getBlockPos().asLong(), data.getLevel());
+                }
+            } else {
+                index.remove(ghast.getUuid());
+            }
+        });
+    }
+    
+    /**
+     * 按恶魂的当前数据更新索引
+     * 没有主人的恶魂不会被记录
+     * 
+     * @param world 恶魂所在世界
+     * @param ghast 快乐恶魂
+     */
+    public static void update(ServerWorld world, HappyGhastEntity ghast) {
+        HappyGhastData data = NetworkHandler.getOrCreateGhastData(ghast);
+        if (data.getOwner() == null) return;
+        get(world).put(ghast.getUuid(), data.getOwner(), ghast.getBlockPos().asLong(), data.getLevel());
+    }
+    
+    /**
+     * 写入一条记录，主人变化时从原主人的记录中移除
+     */
+    private void put(UUID ghast, UUID owner, long pos, int level) {
+        Entry entry = byGhast.get(ghast);
+        if (entry == null) {
+            entry = new Entry(ghast, owner, pos, level);
+            byGhast.put(ghast, entry);
+        } else if (entry.owner.equals(owner) && entry.pos == pos && entry.level == level) {
+            return;
+        } else {
+            if (!entry.owner.equals(owner)) {
+                removeFromOwner(entry);
+                entry.owner = owner;
+            }
+            entry.pos = pos;
+            entry.level = level;
+        }
+        byOwner.computeIfAbsent(owner, key -> new HashMap<>()).put(ghast, entry);
+        dirty = true;
+    }
+    
+    /**
+     * 删除一只恶魂的记录
+     * @param ghast 恶魂UUID
+     */
+    public void remove(UUID ghast) {
+        Entry entry = byGhast.remove(ghast);
+        if (entry != null) {
+            removeFromOwner(entry);
+            dirty = true;
+        }
+    }
+    
+    private void removeFromOwner(Entry entry) {
+        Map<UUID, Entry> owned = byOwner.get(entry.owner);
+        if (owned != null) {
+            owned.remove(entry.ghast);
+            if (owned.isEmpty()) {
+                byOwner.remove(entry.owner);
+            }
+        }
+    }
+    
+    /**
+     * 获取玩家在这个世界拥有的所有恶魂
+     * @param owner 玩家UUID
+     * @return 记录集合（只读）
+     */
+    public Collection<Entry> getOwned(UUID owner) {
+        Map<UUID, Entry> owned = byOwner.get(owner);
+        return owned == null ? Collections.emptyList() : Collections.unmodifiableCollection(owned.values());
+    }
+    
+    /**
+     * 有变化时把快照提交给后台线程
+     */
+    private void submit() {
+        if (dirty) {
+            dirty = false;
+            long[] entries = snapshot();
+            GhastRegistryWriter.submit(file, nbt -> writeSnapshot(nbt, entries));
+        }
+    }
+    
+    /**
+     * 把所有记录打包成一个long数组
+     * 在主线程中调用，只复制数值，编码和写入交给后台线程
+     */
+    private long[] snapshot() {
+        long[] entries = new long[byGhast.size() * SNAPSHOT_STRIDE];
+        int i = 0;
+        for (Entry entry : byGhast.values()) {
+            entries[i++] = entry.ghast.getMostSignificantBits();
+            entries[i++] = entry.ghast.getLeastSignificantBits();
+            entries[i++] = entry.owner.getMostSignificantBits();
+            entries[i++] = entry.owner.getLeastSignificantBits();
+            entries[i++] = entry.pos;
+            entries[i++] = entry.level;
+        }
+        return entries;
+    }
+    
+    /**
+     * 把快照写入NBT，格式为：{V: 格式版本, E: [每条记录6个long]}
+     * 由后台写入线程调用
+     */
+    private static void writeSnapshot(NbtCompound nbt, long[] entries) {
+        nbt.putByte(KEY_VERSION, FORMAT_VERSION);
+        nbt.putLongArray(KEY_ENTRIES, entries);
+    }
+    
+    /**
+     * 从存档读取世界的索引
+     * 在世界加载时调用；读取前等待同一文件尚未完成的写入
+     */
+    private static GhastOwnershipIndex load(ServerWorld world) {
+        Path directory = DimensionType.getSaveDirectory(
+            world.getRegistryKey(), world.getServer().getSavePath(WorldSavePath.ROOT));
+        GhastOwnershipIndex index = new GhastOwnershipIndex(directory.resolve("data").resolve(FILE_NAME));
+        if (!Files.exists(index.file)) return index;
+        
+        GhastRegistryWriter.flush();
+        try {
+            NbtCompound nbt = NbtIo.readCompressed(index.file, NbtSizeTracker.ofUnlimitedBytes());
+            byte version = nbt.getByte(KEY_VERSION).orElse((byte) 0);
+            long[] entries = nbt.getLongArray(KEY_ENTRIES).orElse(new long[0]);
+            if (version != FORMAT_VERSION) {
+                Chestonghast.LOGGER.warn("无法识别的快乐恶魂注册表格式版本 {}：{}", version, index.file);
+                return index;
+            }
+            
+            for (int i = 0; i + SNAPSHOT_STRIDE <= entries.length; i += SNAPSHOT_STRIDE) {
+                Entry entry = new Entry(
+                    new UUID(entries[i], entries[i + 1]),
+                    new UUID(entries[i + 2], entries[i + 3]),
+                    entries[i + 4],
+                    (int) entries[i + 5]);
+                index.byGhast.put(entry.ghast, entry);
+                index.byOwner.computeIfAbsent(entry.owner, owner -> new HashMap<>()).put(entry.ghast, entry);
+            }
+        } catch (IOException e) {
+            Chestonghast.LOGGER.error("无法读取快乐恶魂注册表 {}", index.file, e);
+        }
+        return index;
+    }
+    
+    /**
+     * 获取一只恶魂的记录
+     * @param ghast 恶魂UUID
+     * @return 记录，没有主人或不在这个世界时返回null
+     */
+    public Entry getEntry(UUID ghast) {
+        return byGhast.get(ghast);
+    }
+}
@@ -0,0 +1,126 @@
+package me.noramibu.ownership;
+
+import me.noramibu.Chestonghast;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtIo;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 快乐恶魂注册表的后台写入线程
+ * 主线程只提交快照，编码和磁盘写入都在这个线程中完成
+ * 同一个文件在写入前收到多个快照时只写最新的一个
+ * 先写入临时文件，再原子地替换目标文件，写入中途崩溃不会损坏已有文件
+ * 主人索引和货舱索引共用这个线程
+ */
+public final class GhastRegistryWriter {
+    // 保护待写入队列和写入状态
+    private static final Object LOCK = new Object();
+    
+    // 文件 -> 最新的待写入快照
+    private static final Map<Path, Consumer<NbtCompound>> PENDING = new LinkedHashMap<>();
+    
+    // 写入线程，第一次提交时启动
+    private static Thread thread;
+    
+    // 写入线程是否正在写文件
+    private static boolean writing;
+    
+    private GhastRegistryWriter() {
+    }
+    
+    /**
+     * 提交一个快照，不等待写入完成
+     * @param file 目标文件
+     * @param snapshot 在写入线程中把快照编码为NBT，引用的数据提交后不能再修改
+     */
+    public static void submit(Path file, Consumer<NbtCompound> snapshot) {
+        synchronized (LOCK) {
+            PENDING.put(file, snapshot);
+            if (thread == null) {
+                thread = new Thread(GhastRegistryWriter::run, "Chest on Ghast Registry Writer");
+                thread.setDaemon(true);
+                thread.start();
+            }
+            LOCK.notifyAll();
+        }
+    }
+    
+    /**
+     * 等待所有已提交的快照写入完成
+     * 只在世界卸载、服务器关闭或读取同一文件前调用
+     */
+    public static void flush() {
+        synchronized (LOCK) {
+            while (!PENDING.isEmpty() || writing) {
+                try {
+                    LOCK.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * 写入线程主循环
+     */
+    private static void run() {
+        while (true) {
+            Path file;
+            Consumer<NbtCompound> snapshot;
+            synchronized (LOCK) {
+                while (PENDING.isEmpty()) {
+                    try {
+                        LOCK.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                Iterator<Map.Entry<Path, Consumer<NbtCompound>>> iterator = PENDING.entrySet().iterator();
+                Map.Entry<Path, Consumer<NbtCompound>> next = iterator.next();
+                iterator.remove();
+                file = next.getKey();
+                snapshot = next.getValue();
+                writing = true;
+            }
+            
+            try {
+                write(file, snapshot);
+            } catch (IOException | RuntimeException e) {
+                Chestonghast.LOGGER.error("无法保存快乐恶魂注册表 {}", file, e);
+            } finally {
+                synchronized (LOCK) {
+                    writing = false;
+                    LOCK.notifyAll();
+                }
+            }
+        }
+    }
+    
+    /**
+     * 写入临时文件后原子替换目标文件
+     */
+    private static void write(Path file, Consumer<NbtCompound> snapshot) throws IOException {
+        NbtCompound root = new NbtCompound();
+        snapshot.accept(root);
+        
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        NbtIo.writeCompressed(root, temp);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package me.noramibu.sync;
+
+import me.noramibu.index.GhastSpatialIndex;
+import me.noramibu.metrics.GhastMetrics;
+import me.noramibu.metrics.GhastProfiler;
+import me.noramibu.network.SyncGhastBatchPayload;
+import me.noramibu.network.SyncGhastDataPayload;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 附近快乐恶魂的低频广播
+ * 每秒向每个玩家发送一次附近恶魂的增量数据（一个批量包），客户端据此显示头顶信息
+ * 玩家按UUID分散到不同tick处理，避免所有玩家集中在同一tick
+ * 与GUI同步共用GhastSyncTracker的发送记录，没有变化的恶魂不会发送
+ */
+public class GhastNearbyBroadcast {
+    // 广播间隔（tick）
+    private static final int BROADCAST_INTERVAL = 20;
+    
+    // 广播范围（方块），客户端的显示距离不会超过这个范围
+    public static final double RANGE = 32.0;
+    
+    /**
+     * 注册广播所需的事件
+     */
+    public static void register() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            long start = GhastProfiler.start();
+            tick(server);
+            GhastProfiler.record(GhastProfiler.Section.NEARBY_BROADCAST, start);
+        });
+    }
+    
+    /**
+     * 服务端tick处理
+     * 每个玩家每BROADCAST_INTERVAL个tick处理一次
+     */
+    private static void tick(MinecraftServer server) {
+        int slot = server.getTicks() % BROADCAST_INTERVAL;
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            if (Math.floorMod(player.getUuid().hashCode(), BROADCAST_INTERVAL) == slot) {
+                broadcast(player);
+            }
+        }
+    }
+    
+    /**
+     * 向一个玩家发送附近恶魂的增量数据
+     */
+    private static void broadcast(ServerPlayerEntity player) {
+        double rangeSq = RANGE * RANGE;
+        List<SyncGhastDataPayload> updates = new ArrayList<>();
+        GhastSpatialIndex.forEachInBox(player.getEntityWorld(), player.getBoundingBox().expand(RANGE), ghast -> {
+            if (ghast.isRemoved() || ghast.squaredDistanceTo(player) > rangeSq) return;
+            SyncGhastDataPayload update = GhastSyncTracker.createDelta(player, ghast, false);
+            if (update != null) {
+                updates.add(update);
+            }
+        });
+        
+        if (!updates.isEmpty()) {
+            SyncGhastBatchPayload payload = new SyncGhastBatchPayload(updates);
+            ServerPlayNetworking.send(player, payload);
+            GhastMetrics.countSent(GhastMetrics.Packet.SYNC_GHAST_BATCH, payload.encodedSize());
+        }
+    }
+}
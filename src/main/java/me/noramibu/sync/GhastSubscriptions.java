@@ -0,0 +1,100 @@
+package me.noramibu.sync;
+
+import me.noramibu.NetworkHandler;
+import me.noramibu.metrics.GhastProfiler;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 快乐恶魂GUI订阅管理
+ * 玩家打开GUI期间，服务端定期推送发生变化的数据，GUI实时更新
+ * 客户端不需要反复发送打开GUI的请求来刷新界面
+ */
+public class GhastSubscriptions {
+    // 每秒最多推送次数
+    public static final int MAX_UPDATES_PER_SECOND = 4;
+    
+    // 推送间隔（tick）
+    private static final int PUSH_INTERVAL = 20 / MAX_UPDATES_PER_SECOND;
+    
+    // 玩家离开恶魂超过此距离时取消订阅
+    private static final double MAX_DISTANCE = 16.0;
+    
+    // 玩家UUID -> 正在查看的快乐恶魂
+    private static final Map<UUID, HappyGhastEntity> SUBSCRIPTIONS = new HashMap<>();
+    
+    /**
+     * 注册订阅所需的事件
+     */
+    public static void register() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            long start = GhastProfiler.start();
+            tick(server);
+            GhastProfiler.record(GhastProfiler.Section.SUBSCRIPTIONS, start);
+        });
+        
+        // 玩家断开连接或服务端关闭时移除订阅
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) ->
+            SUBSCRIPTIONS.remove(handler.getPlayer().getUuid()));
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> SUBSCRIPTIONS.clear());
+    }
+    
+    /**
+     * 订阅快乐恶魂数据
+     * 每个玩家同时只订阅一只恶魂，新的订阅会替换旧的
+     * @param player 玩家
+     * @param ghast 快乐恶魂实体
+     */
+    public static void subscribe(ServerPlayerEntity player, HappyGhastEntity ghast) {
+        SUBSCRIPTIONS.put(player.getUuid(), ghast);
+    }
+    
+    /**
+     * 取消订阅
+     * 只有当前订阅的恶魂与实体ID一致时才取消，避免旧GUI关闭时取消新GUI的订阅
+     * @param player 玩家
+     * @param entityId 关闭的GUI对应的实体ID
+     */
+    public static void unsubscribe(ServerPlayerEntity player, int entityId) {
+        HappyGhastEntity ghast = SUBSCRIPTIONS.get(player.getUuid());
+        if (ghast != null && ghast.getId() == entityId) {
+            SUBSCRIPTIONS.remove(player.getUuid());
+        }
+    }
+    
+    /**
+     * 服务端tick处理
+     * 按固定间隔推送变化的数据，同一间隔内的多次变化合并为一个数据包
+     */
+    private static void tick(MinecraftServer server) {
+        if (SUBSCRIPTIONS.isEmpty() || server.getTicks() % PUSH_INTERVAL != 0) return;
+        
+        Iterator<Map.Entry<UUID, HappyGhastEntity>> iterator = SUBSCRIPTIONS.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, HappyGhastEntity> entry = iterator.next();
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(entry.getKey());
+            HappyGhastEntity ghast = entry.getValue();
+            
+            // 玩家离线、恶魂被移除、不在同一世界或距离过远时取消订阅
+            if (player == null
+                || ghast.isRemoved()
+                || ghast.getEntityWorld() != player.getEntityWorld()
+                || player.squaredDistanceTo(ghast) > MAX_DISTANCE * MAX_DISTANCE) {
+                iterator.remove();
+                continue;
+            }
+            
+            // 没有变化时不会发送
+            NetworkHandler.sendGhastData(player, ghast, false);
+        }
+    }
+}
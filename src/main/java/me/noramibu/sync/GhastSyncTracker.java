@@ -0,0 +1,160 @@
+package me.noramibu.sync;
+
+import me.noramibu.NetworkHandler;
+import me.noramibu.data.HappyGhastData;
+import me.noramibu.hunger.HungerScheduler;
+import me.noramibu.network.SyncGhastDataPayload;
+import net.fabricmc.fabric.api.entity.event.v1.ServerEntityWorldChangeEvents;
+import net.fabricmc.fabric.api.entity.event.v1.ServerPlayerEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.networking.v1.EntityTrackingEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.entity.passive.HappyGhastEntity;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 快乐恶魂数据同步追踪器
+ * 记录每个玩家已经收到的每只恶魂的数据，只发送发生变化的字段
+ * 
+ * 记录与客户端ClientGhastCache保持一致：相同的容量、按发送先后淘汰，
+ * 客户端卸载实体、切换世界时服务端也移除对应的记录，被移除的恶魂下次同步时发送所有字段
+ * 两边仍然不一致时，客户端会忽略没有缓存的恶魂的增量数据并请求重新发送，见forget
+ */
+public class GhastSyncTracker {
+    // 玩家UUID -> (实体ID -> 已发送的量化值)，内层顺序为最近一次发送的先后
+    private static final Map<UUID, LinkedHashMap<Integer, int[]>> SENT = new HashMap<>();
+    
+    // 已发送值数组中各字段的下标
+    private static final int IDX_LEVEL = 0;
+    private static final int IDX_EXPERIENCE = 1;
+    private static final int IDX_HUNGER = 2;
+    private static final int IDX_HEALTH = 3;
+    
+    /**
+     * 注册清理所需的事件
+     */
+    public static void register() {
+        // 玩家断开连接时清除其记录，重新连接后会收到完整数据
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) ->
+            SENT.remove(handler.getPlayer().getUuid()));
+        
+        // 恶魂卸载后实体ID不会再被复用，移除所有玩家对它的记录
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof HappyGhastEntity) {
+                for (Map<Integer, int[]> sent : SENT.values()) {
+                    sent.remove(entity.getId());
+                }
+            }
+        });
+        
+        // 玩家不再追踪这只恶魂时客户端会卸载实体并移除缓存，这里同步移除
+        EntityTrackingEvents.STOP_TRACKING.register((entity, player) -> {
+            if (entity instanceof HappyGhastEntity) {
+                Map<Integer, int[]> sent = SENT.get(player.getUuid());
+                if (sent != null) {
+                    sent.remove(entity.getId());
+                }
+            }
+        });
+        
+        // 切换世界时客户端会清空缓存，这里同步清空
+        ServerEntityWorldChangeEvents.AFTER_PLAYER_CHANGE_WORLD.register((player, origin, destination) ->
+            SENT.remove(player.getUuid()));
+        ServerPlayerEvents.AFTER_RESPAWN.register((oldPlayer, newPlayer, alive) -> {
+            if (oldPlayer.getEntityWorld() != newPlayer.getEntityWorld()) {
+                SENT.remove(newPlayer.getUuid());
+            }
+        });
+    }
+    
+    /**
+     * 移除玩家对一只恶魂的发送记录，下次同步时发送所有字段
+     * 客户端缓存中没有这只恶魂、无法应用增量数据时调用
+     * 
+     * @param player 玩家
+     * @param entityId 实体ID
+     */
+    public static void forget(ServerPlayerEntity player, int entityId) {
+        Map<Integer, int[]> sent = SENT.get(player.getUuid());
+        if (sent != null) {
+            sent.remove(entityId);
+        }
+    }
+    
+    /**
+     * 创建发送给玩家的增量数据包
+     * 玩家第一次收到这只恶魂的数据时包含所有字段
+     * 
+     * @param player 目标玩家
+     * @param ghast 快乐恶魂实体
+     * @param openScreen 客户端收到后是否打开GUI
+     * @return 增量数据包，如果没有变化且不需要打开GUI则返回null
+     */
+    public static SyncGhastDataPayload createDelta(ServerPlayerEntity player, HappyGhastEntity ghast, boolean openScreen) {
+        HappyGhastData data = NetworkHandler.getOrCreateGhastData(ghast);
+        long now = HungerScheduler.now(ghast.getEntityWorld());
+        
+        int level = data.getLevel();
+        int experience = data.getExperience();
+        float hunger = data.getHunger(now);
+        float health = ghast.getHealth();
+        
+        LinkedHashMap<Integer, int[]> sent = SENT.computeIfAbsent(player.getUuid(), uuid -> new LinkedHashMap<>());
+        int[] last = sent.get(ghast.getId());
+        
+        int mask;
+        if (last == null) {
+            last = new int[4];
+            mask = SyncGhastDataPayload.ALL_FIELDS;
+        } else {
+            mask = 0;
+        }
+        
+        // 比较量化后的值，避免浮点微小变化触发发送
+        mask |= update(last, IDX_LEVEL, level, SyncGhastDataPayload.LEVEL);
+        mask |= update(last, IDX_EXPERIENCE, experience, SyncGhastDataPayload.EXPERIENCE);
+        mask |= update(last, IDX_HUNGER, SyncGhastDataPayload.quantize(hunger), SyncGhastDataPayload.HUNGER);
+        mask |= update(last, IDX_HEALTH, SyncGhastDataPayload.quantize(health), SyncGhastDataPayload.HEALTH);
+        
+        if (openScreen) {
+            mask |= SyncGhastDataPayload.OPEN_SCREEN;
+        } else if (mask == 0) {
+            return null;
+        }
+        
+        // 数据包一定会被发送：移到末尾并按容量淘汰，与客户端缓存的顺序一致
+        touch(sent, ghast.getId(), last);
+        
+        return new SyncGhastDataPayload(ghast.getId(), mask, level, experience, hunger, health);
+    }
+    
+    /**
+     * 把记录移到末尾，超出容量时淘汰最久未发送的记录
+     */
+    private static void touch(LinkedHashMap<Integer, int[]> sent, int entityId, int[] last) {
+        sent.remove(entityId);
+        sent.put(entityId, last);
+        
+        Iterator<Map.Entry<Integer, int[]>> iterator = sent.entrySet().iterator();
+        while (sent.size() > SyncGhastDataPayload.CACHE_CAPACITY && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+    
+    /**
+     * 更新已发送的值
+     * @return 值发生变化时返回对应的字段掩码，否则返回0
+     */
+    private static int update(int[] last, int index, int value, int field) {
+        if (last[index] == value) return 0;
+        last[index] = value;
+        return field;
+    }
+}